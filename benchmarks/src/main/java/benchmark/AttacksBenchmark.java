@@ -0,0 +1,28 @@
+package benchmark;
+
+import chess.Attacks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to build the attack tables, which happens once per JVM when the first attack is looked up. Each fork measures
+ * that first lookup from a cold start, so the score is the setup cost an engine or server pays at startup.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class AttacksBenchmark {
+    @Benchmark
+    public long initialization() {
+        return Attacks.rook(0, 0);
+    }
+}
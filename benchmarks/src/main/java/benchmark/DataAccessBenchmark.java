@@ -0,0 +1,92 @@
+package benchmark;
+
+import chess.ChessGame;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryAuthDAO;
+import dataaccess.MemoryGameDAO;
+import model.AuthData;
+import model.GameData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory DAOs with a given number of stored games and sessions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataAccessBenchmark {
+    @Param({"10", "1000"})
+    public int size;
+
+    private MemoryGameDAO gameDAO;
+    private MemoryAuthDAO authDAO;
+    private GameData[] games;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setup() throws DataAccessException {
+        gameDAO = new MemoryGameDAO();
+        authDAO = new MemoryAuthDAO();
+        games = new GameData[size];
+        tokens = new String[size];
+        for (int i = 0; i < size; i++) {
+            games[i] = new GameData(i + 1, "white" + i, "black" + i, "game" + i, new ChessGame());
+            gameDAO.createGame(games[i]);
+            tokens[i] = UUID.randomUUID().toString();
+            authDAO.createAuth(new AuthData(tokens[i], "user" + i));
+        }
+    }
+
+    private int nextIndex() {
+        next = next + 1 == size ? 0 : next + 1;
+        return next;
+    }
+
+    @Benchmark
+    public GameData getGame() throws DataAccessException {
+        return gameDAO.getGame(games[nextIndex()].gameID());
+    }
+
+    @Benchmark
+    public void updateGame() throws DataAccessException {
+        GameData game = games[nextIndex()];
+        gameDAO.updateGame(game.gameID(), game);
+    }
+
+    @Benchmark
+    public void listGames(Blackhole blackhole) throws DataAccessException {
+        for (GameData game : gameDAO.listGames()) {
+            blackhole.consume(game);
+        }
+    }
+
+    @Benchmark
+    public AuthData getAuth() throws DataAccessException {
+        return authDAO.getAuth(tokens[nextIndex()]);
+    }
+
+    @Benchmark
+    public void createAndDeleteAuth() throws DataAccessException {
+        AuthData auth = new AuthData(UUID.randomUUID().toString(), "user");
+        authDAO.createAuth(auth);
+        authDAO.deleteAuth(auth);
+    }
+}
@@ -0,0 +1,81 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.PackedMove;
+import engine.OpeningBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opening book lookups in books of random positions from 1 MB to 100 MB, with the position being looked up
+ * somewhere among them. Run with the GC profiler to check that lookups don't allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OpeningBookBenchmark {
+    @Param({"1", "100"})
+    public int sizeMb;
+
+    private Path path;
+    private OpeningBook book;
+    private ChessGame inBook;
+    private ChessGame notInBook;
+    private SplittableRandom random;
+
+    @Setup
+    public void setup() throws IOException {
+        int count = sizeMb * (1 << 20) / OpeningBook.ENTRY_BYTES;
+        SplittableRandom keys = new SplittableRandom(42);
+        long[] entryKeys = keys.longs(count).toArray();
+        inBook = Positions.game(Positions.MIDDLEGAME);
+        entryKeys[count / 3] = inBook.positionKey();
+        Arrays.sort(entryKeys);
+        int[] moves = new int[count];
+        int[] weights = new int[count];
+        Arrays.fill(moves, PackedMove.of(ChessMove.fromCoordinateNotation("h2h3")));
+        Arrays.fill(weights, 1);
+
+        path = Files.createTempFile("book", ".bin");
+        OpeningBook.write(path, entryKeys, moves, weights, count);
+        book = OpeningBook.open(path);
+        notInBook = Positions.game(Positions.ENDGAME);
+        random = new SplittableRandom(1);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public ChessMove hit() {
+        return book.pick(inBook, random);
+    }
+
+    @Benchmark
+    public ChessMove miss() {
+        return book.pick(notInBook, random);
+    }
+}
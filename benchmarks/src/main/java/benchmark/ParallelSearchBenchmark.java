@@ -0,0 +1,67 @@
+package benchmark;
+
+import chess.ChessGame;
+import engine.Engine;
+import engine.SearchLimits;
+import engine.SearchResult;
+import engine.TranspositionTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to reach a fixed depth with a Lazy SMP search on 1 to 8 threads, starting from an empty transposition table
+ * each time. The speedup for N threads is the 1-thread time divided by the N-thread time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ParallelSearchBenchmark {
+    @Param({Positions.MIDDLEGAME})
+    public String position;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"7"})
+    public int depth;
+
+    private Engine engine;
+    private ChessGame game;
+
+    @Setup
+    public void setup() {
+        engine = new Engine(new TranspositionTable(64), threads);
+        game = Positions.game(position);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        engine.newGame();
+    }
+
+    @Benchmark
+    public SearchResult timeToDepth() {
+        return engine.search(game, SearchLimits.depth(depth));
+    }
+}
@@ -0,0 +1,71 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ParallelPerft;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fork-join perft on 1 to 8 threads, with and without the shared hash. The "nodes" counter gives nodes per second,
+ * and the speedup for N threads is the N-thread rate divided by the 1-thread rate. Each run gets a new perft, so that
+ * none starts with the counts of the last one; creating its pool and hash is small next to the count itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class PerftBenchmark {
+    @Param({Positions.OPENING, Positions.MIDDLEGAME})
+    public String position;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"5"})
+    public int depth;
+
+    @Param({"0", "64"})
+    public int hashMb;
+
+    private ChessGame game;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        game = Positions.game(position);
+    }
+
+    @Benchmark
+    public long perft(Counters counters) {
+        try (ParallelPerft perft = new ParallelPerft(threads, hashMb)) {
+            long nodes = perft.perft(game, depth);
+            counters.nodes += nodes;
+            return nodes;
+        }
+    }
+}
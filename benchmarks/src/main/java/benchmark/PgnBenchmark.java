@@ -0,0 +1,104 @@
+package benchmark;
+
+import chess.PgnGame;
+import chess.PgnPipeline;
+import chess.PgnReader;
+import chess.PgnWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PGN import throughput in games per second, over an archive of random games of up to 120 plies: reading alone,
+ * reading and replaying every move on one thread, and the pipeline on 1 to 8 threads. The archive is held in memory,
+ * so this measures parsing and validation rather than the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PgnBenchmark {
+    private static final int GAMES = 2000;
+
+    private String archive;
+
+    /**
+     * The pipeline, which only the pipeline benchmark runs with each thread count
+     */
+    @State(Scope.Benchmark)
+    public static class Pipeline {
+        @Param({"1", "2", "4", "8"})
+        public int threads;
+
+        private PgnPipeline pipeline;
+
+        @Setup
+        public void setup() {
+            pipeline = new PgnPipeline(threads);
+        }
+
+        @TearDown
+        public void tearDown() {
+            pipeline.close();
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        StringWriter out = new StringWriter();
+        try (PgnWriter writer = new PgnWriter(out)) {
+            for (int i = 0; i < GAMES; i++) {
+                PgnGame game = PgnGame.of(Positions.randomGame(random, 120),
+                        Map.of("Event", "Benchmark", "Round", String.valueOf(i)), null);
+                writer.write(game);
+            }
+        }
+        archive = out.toString();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public void read(Blackhole blackhole) throws IOException {
+        PgnReader reader = new PgnReader(new StringReader(archive));
+        for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+            blackhole.consume(game);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public void replay(Blackhole blackhole) throws IOException {
+        PgnReader reader = new PgnReader(new StringReader(archive));
+        for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+            blackhole.consume(PgnPipeline.replay(game));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public PgnPipeline.Summary pipeline(Pipeline state) throws IOException {
+        return state.pipeline.run(new StringReader(archive), replayed -> {
+        });
+    }
+}
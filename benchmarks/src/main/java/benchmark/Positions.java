@@ -0,0 +1,95 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.LegalMoveGenerator;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Games used as benchmark inputs, reached by playing moves from the starting position so that the history and
+ * castling state are realistic.
+ */
+public class Positions {
+    public static final String OPENING = "opening";
+    public static final String MIDDLEGAME = "middlegame";
+    public static final String ENDGAME = "endgame";
+
+    // Giuoco Piano, castled on both sides
+    private static final String[] MIDDLEGAME_MOVES = {
+            "e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "f8c5", "c2c3", "g8f6", "d2d3", "d7d6",
+            "e1g1", "e8g8", "b1d2", "a7a6", "a2a4", "c8e6",
+    };
+
+    // Trade down to rooks and pawns from the middlegame above
+    private static final String[] ENDGAME_MOVES = {
+            "c4e6", "f7e6", "d3d4", "e5d4", "c3d4", "c5b4", "d4d5", "e6d5", "e4d5", "c6e5",
+            "f3e5", "d6e5", "d1b3", "b4d2", "c1d2", "d8d5", "b3d5", "f6d5", "d2e3", "d5e3",
+            "f2e3",
+    };
+
+    /**
+     * @return A new game at the named position
+     */
+    public static ChessGame game(String name) {
+        ChessGame game = new ChessGame();
+        switch (name) {
+            case OPENING -> {
+            }
+            case MIDDLEGAME -> play(game, MIDDLEGAME_MOVES);
+            case ENDGAME -> {
+                play(game, MIDDLEGAME_MOVES);
+                play(game, ENDGAME_MOVES);
+            }
+            default -> throw new IllegalArgumentException("Unknown position: " + name);
+        }
+        return game;
+    }
+
+    /**
+     * @return A game of random legal moves from the starting position, which ends early if the team to move has none
+     */
+    public static ChessGame randomGame(RandomGenerator random, int plies) {
+        ChessGame game = new ChessGame();
+        int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+        for (int ply = 0; ply < plies; ply++) {
+            int count = LegalMoveGenerator.generate(game, moves);
+            if (count == 0) {
+                break;
+            }
+            game.makeMoveUnchecked(moves[random.nextInt(count)]);
+        }
+        return game;
+    }
+
+    private static void play(ChessGame game, String[] moves) {
+        for (String move : moves) {
+            try {
+                game.makeMove(parse(move));
+            } catch (Exception e) {
+                throw new IllegalStateException("Illegal move in benchmark position: " + move, e);
+            }
+        }
+    }
+
+    /**
+     * @return Move from coordinate notation, e.g. "e2e4" or "e7e8q"
+     */
+    static ChessMove parse(String move) {
+        ChessPosition start = new ChessPosition(move.charAt(1) - '0', move.charAt(0) - 'a' + 1);
+        ChessPosition end = new ChessPosition(move.charAt(3) - '0', move.charAt(2) - 'a' + 1);
+        ChessPiece.PieceType promotion = null;
+        if (move.length() > 4) {
+            promotion = switch (move.charAt(4)) {
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                default -> throw new IllegalArgumentException("Unknown promotion piece: " + move);
+            };
+        }
+        return new ChessMove(start, end, promotion);
+    }
+}
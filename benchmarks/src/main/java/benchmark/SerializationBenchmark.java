@@ -0,0 +1,76 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessJson;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import websocket.messages.LoadGameMessage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson round trips of a game. MySqlGameDAO stores and loads the game as JSON, and the server sends a
+ * LoadGameMessage to every client in the game, on every move. The reflective format is kept as a baseline for the
+ * compact ChessJson adapters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({Positions.OPENING, Positions.MIDDLEGAME, Positions.ENDGAME})
+    public String position;
+
+    @Param({"reflective", "compact"})
+    public String format;
+
+    private Gson gson;
+    private ChessGame game;
+    private String gameJson;
+    private String loadGameJson;
+
+    @Setup
+    public void setup() {
+        gson = format.equals("compact") ? ChessJson.gson() : new Gson();
+        game = Positions.game(position);
+        gameJson = gson.toJson(game);
+        loadGameJson = gson.toJson(new LoadGameMessage(game));
+    }
+
+    @Benchmark
+    public String serializeGame() {
+        return gson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame deserializeGame() {
+        return gson.fromJson(gameJson, ChessGame.class);
+    }
+
+    @Benchmark
+    public ChessGame roundTripGame() {
+        return gson.fromJson(gson.toJson(game), ChessGame.class);
+    }
+
+    @Benchmark
+    public String serializeLoadGame() {
+        return gson.toJson(new LoadGameMessage(game));
+    }
+
+    @Benchmark
+    public LoadGameMessage deserializeLoadGame() {
+        return gson.fromJson(loadGameJson, LoadGameMessage.class);
+    }
+}
@@ -2,6 +2,7 @@ package serverfacade;
 
 import api.*;
 import api.exception.*;
+import chess.ChessJson;
 import com.google.gson.Gson;
 
 import java.io.InputStream;
@@ -12,7 +13,7 @@ import java.net.URI;
 
 public class ServerFacade {
     private final String url;
-    private final Gson gson = new Gson();
+    private final Gson gson = ChessJson.gson();
     private String authToken = null;
 
     public ServerFacade(String url) {
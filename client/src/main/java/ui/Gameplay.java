@@ -1,6 +1,7 @@
 package ui;
 
 import chess.ChessGame;
+import chess.ChessJson;
 import chess.ChessMove;
 import chess.ChessPiece;
 import chess.ChessPosition;
@@ -25,7 +26,7 @@ public class Gameplay extends Endpoint {
     private final String authToken;
     private final int gameID;
     private Session session;
-    private final Gson gson = new Gson();
+    private final Gson gson = ChessJson.gson();
 
     public Gameplay(ChessGame game, ChessGame.TeamColor team, String user, String authToken, int gameID) throws Exception {
         this.game = game;
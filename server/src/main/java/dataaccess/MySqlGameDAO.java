@@ -1,6 +1,7 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessJson;
 import com.google.gson.Gson;
 import model.GameData;
 
@@ -12,7 +13,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 
 public class MySqlGameDAO implements GameDAO {
-    private Gson gson = new Gson();
+    private Gson gson = ChessJson.gson();
 
     public MySqlGameDAO() throws DataAccessException {
         DatabaseManager.createDatabase();
@@ -1,5 +1,6 @@
 package server;
 
+import chess.ChessJson;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import dataaccess.*;
@@ -19,7 +20,7 @@ public class Server {
     private GameService gameService;
     private ResetService resetService;
     private WebSocketServer webSocketServer;
-    private Gson gson = new Gson();
+    private Gson gson = ChessJson.gson();
 
     public int run(int desiredPort) {
         Spark.port(desiredPort);
@@ -113,7 +114,7 @@ public class Server {
         try {
             Object result = handler.get();
             response.status(200);
-            return new Gson().toJson(result);
+            return gson.toJson(result);
         } catch (HttpErrorException e) {
             response.status(e.status);
             return "{\"message\": \"" + e.getMessage() + "\"}";
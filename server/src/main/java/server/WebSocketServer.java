@@ -1,8 +1,10 @@
 package server;
 
 import chess.ChessGame;
+import chess.ChessJson;
 import chess.ChessPiece;
 import chess.ChessPosition;
+import chess.GameStatus;
 import chess.InvalidMoveException;
 import com.google.gson.Gson;
 import dataaccess.AuthDAO;
@@ -25,7 +27,7 @@ import java.util.HashSet;
 
 @WebSocket
 public class WebSocketServer {
-    private final Gson gson = new Gson();
+    private final Gson gson = ChessJson.gson();
     private final AuthDAO auths;
     private final GameDAO games;
     private final HashMap<Integer, HashSet<Session>> rooms = new HashMap<>();
@@ -178,22 +180,28 @@ public class WebSocketServer {
         ChessGame game = gameData.game();
         ChessGame.TeamColor turn = game.getTeamTurn();
         String player = turn == ChessGame.TeamColor.WHITE ? gameData.whiteUsername() : gameData.blackUsername();
-        String notification;
-        game.setIsOver(true);
-        GameData gameOver = new GameData(
-                gameData.gameID(), gameData.whiteUsername(), gameData.blackUsername(), gameData.gameName(), game
-        );
+        GameStatus status = game.status();
+        String notification = switch (status) {
+            case ONGOING -> null;
+            case CHECK -> player + " is in check!";
+            case CHECKMATE -> player + " is in checkmate!";
+            case STALEMATE -> player + " is in stalemate!";
+            case INSUFFICIENT_MATERIAL -> "The game is a draw by insufficient material.";
+            case SEVENTY_FIVE_MOVE_RULE -> "The game is a draw by the 75-move rule.";
+            case FIVEFOLD_REPETITION -> "The game is a draw by fivefold repetition.";
+            case THREEFOLD_REPETITION -> "The game is a draw by threefold repetition.";
+            case FIFTY_MOVE_RULE -> "The game is a draw by the 50-move rule.";
+        };
+        if (notification == null) {
+            return;
+        }
         try {
-            if (game.isInCheckmate(turn)) {
-                notification = player + " is in checkmate!";
-                games.updateGame(gameData.gameID(), gameOver);
-            } else if (game.isInCheck(turn)) {
-                notification = player + " is in check!";
-            } else if (game.isInStalemate(turn)) {
-                notification = player + " is in stalemate!";
-                games.updateGame(gameData.gameID(), gameOver);
-            } else {
-                return;
+            // Players have no way to claim a draw, so the server claims it for them
+            if (status.isOver() || status.isDrawClaimable()) {
+                game.setIsOver(true);
+                games.updateGame(gameData.gameID(), new GameData(
+                        gameData.gameID(), gameData.whiteUsername(), gameData.blackUsername(), gameData.gameName(), game
+                ));
             }
 
             for (Session session : rooms.get(gameData.gameID())) {
@@ -0,0 +1,301 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard representation of the pieces on a chessboard, with one 64-bit set per piece type and color plus
+ * occupancy sets.
+ * <p>
+ * Squares are numbered 0 to 63 with a1 = 0 and h8 = 63, i.e. square = 8 * (row - 1) + (column - 1). Pieces are
+ * identified by an index of color.ordinal() * 6 + type.ordinal().
+ */
+public class Bitboard {
+    public static final int NO_SQUARE = -1;
+    public static final int NO_PIECE = -1;
+    public static final int PIECE_COUNT = 12;
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+    public static final long DARK_SQUARES = 0xAA55AA55AA55AA55L;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private final long[] pieces;
+    private final long[] colors;
+    private long occupied;
+    // Zobrist key of the pieces on the board, kept up to date by put and remove
+    private long key;
+    // Material and piece-square scores (see PieceSquareTables) and phase, also kept up to date by put and remove
+    private int score;
+    private int phase;
+    // Piece index + 1 for each square, so that 0 means empty
+    private final byte[] mailbox;
+
+    public Bitboard() {
+        pieces = new long[PIECE_COUNT];
+        colors = new long[2];
+        occupied = 0;
+        mailbox = new byte[64];
+    }
+
+    public Bitboard(Bitboard other) {
+        pieces = other.pieces.clone();
+        colors = other.colors.clone();
+        occupied = other.occupied;
+        key = other.key;
+        score = other.score;
+        phase = other.phase;
+        mailbox = other.mailbox.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Bitboard that = (Bitboard) o;
+        return key == that.key && occupied == that.occupied && Arrays.equals(mailbox, that.mailbox);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key);
+    }
+
+    /**
+     * @return Square index of the given row and column (both starting at 1)
+     */
+    public static int square(int row, int column) {
+        return 8 * (row - 1) + (column - 1);
+    }
+
+    /**
+     * @return Square index of the given position
+     */
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return Row (starting at 1) of the given square
+     */
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return Column (starting at 1) of the given square
+     */
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * @return Position of the given square
+     */
+    public static ChessPosition position(int square) {
+        return ChessPosition.of(row(square), column(square));
+    }
+
+    /**
+     * @return Piece index of the given color and type
+     */
+    public static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    /**
+     * @return Piece index of the given piece, or NO_PIECE if null
+     */
+    public static int pieceIndex(ChessPiece piece) {
+        return piece == null ? NO_PIECE : pieceIndex(piece.getTeamColor(), piece.getPieceType());
+    }
+
+    /**
+     * @return Piece corresponding to the given piece index, or null if NO_PIECE
+     */
+    public static ChessPiece piece(int pieceIndex) {
+        return pieceIndex == NO_PIECE ? null : ChessPiece.of(color(pieceIndex), type(pieceIndex));
+    }
+
+    /**
+     * @return Color of the piece with the given index
+     */
+    public static ChessGame.TeamColor color(int pieceIndex) {
+        return pieceIndex < 6 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+    }
+
+    /**
+     * @return Type of the piece with the given index
+     */
+    public static ChessPiece.PieceType type(int pieceIndex) {
+        return TYPES[pieceIndex % 6];
+    }
+
+    /**
+     * @return Piece index at the given square, or NO_PIECE if empty
+     */
+    public int pieceAt(int square) {
+        return mailbox[square] - 1;
+    }
+
+    /**
+     * Place a piece on an empty square
+     *
+     * @param square     Square to place it on
+     * @param pieceIndex Index of piece to place
+     */
+    public void put(int square, int pieceIndex) {
+        long bit = 1L << square;
+        pieces[pieceIndex] |= bit;
+        colors[pieceIndex / 6] |= bit;
+        occupied |= bit;
+        key ^= Zobrist.piece(pieceIndex, square);
+        score += PieceSquareTables.value(pieceIndex, square);
+        phase += PieceSquareTables.phase(pieceIndex);
+        mailbox[square] = (byte) (pieceIndex + 1);
+    }
+
+    /**
+     * Remove the piece on a square, if any
+     *
+     * @param square Square to clear
+     * @return Index of the removed piece, or NO_PIECE if the square was empty
+     */
+    public int remove(int square) {
+        int pieceIndex = pieceAt(square);
+        if (pieceIndex != NO_PIECE) {
+            long bit = ~(1L << square);
+            pieces[pieceIndex] &= bit;
+            colors[pieceIndex / 6] &= bit;
+            occupied &= bit;
+            key ^= Zobrist.piece(pieceIndex, square);
+            score -= PieceSquareTables.value(pieceIndex, square);
+            phase -= PieceSquareTables.phase(pieceIndex);
+            mailbox[square] = 0;
+        }
+        return pieceIndex;
+    }
+
+    /**
+     * Remove all pieces from the board
+     */
+    public void clear() {
+        Arrays.fill(pieces, 0);
+        Arrays.fill(colors, 0);
+        occupied = 0;
+        key = 0;
+        score = 0;
+        phase = 0;
+        Arrays.fill(mailbox, (byte) 0);
+    }
+
+    /**
+     * @return Set of squares occupied by the piece with the given index
+     */
+    public long pieces(int pieceIndex) {
+        return pieces[pieceIndex];
+    }
+
+    /**
+     * @return Set of squares occupied by pieces of the given color and type
+     */
+    public long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[pieceIndex(color, type)];
+    }
+
+    /**
+     * @return Set of squares occupied by pieces of the given color
+     */
+    public long color(ChessGame.TeamColor color) {
+        return colors[color.ordinal()];
+    }
+
+    /**
+     * @return Set of all occupied squares
+     */
+    public long occupied() {
+        return occupied;
+    }
+
+    /**
+     * @return Zobrist key of the pieces on the board, not including side to move, castling or en passant
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * @return Material and piece-square score in centipawns from white's point of view, tapered between the
+     * middlegame and endgame scores by the phase
+     */
+    public int score() {
+        return PieceSquareTables.taper(score, phase);
+    }
+
+    /**
+     * @return Middlegame material and piece-square score in centipawns from white's point of view
+     */
+    public int middlegameScore() {
+        return PieceSquareTables.middlegame(score);
+    }
+
+    /**
+     * @return Endgame material and piece-square score in centipawns from white's point of view
+     */
+    public int endgameScore() {
+        return PieceSquareTables.endgame(score);
+    }
+
+    /**
+     * @return Game phase from 0 (only kings and pawns) to 24 (all minor and major pieces), which can exceed 24
+     * after promotions
+     */
+    public int phase() {
+        return phase;
+    }
+
+    /**
+     * @return Set of pieces of the given color attacking the given square, given the set of occupied squares (which
+     * may differ from the board's, e.g. to see through a piece that is about to move)
+     */
+    public long attackersTo(int square, ChessGame.TeamColor color, long occupied) {
+        long queens = pieces(color, ChessPiece.PieceType.QUEEN);
+        return (Attacks.knight(square) & pieces(color, ChessPiece.PieceType.KNIGHT))
+                | (Attacks.king(square) & pieces(color, ChessPiece.PieceType.KING))
+                | (Attacks.pawn(color.opponent(), square) & pieces(color, ChessPiece.PieceType.PAWN))
+                | (Attacks.rook(square, occupied) & (pieces(color, ChessPiece.PieceType.ROOK) | queens))
+                | (Attacks.bishop(square, occupied) & (pieces(color, ChessPiece.PieceType.BISHOP) | queens));
+    }
+
+    /**
+     * Determine whether any piece of the given color attacks a square. Works outward from the square: a pawn,
+     * knight or king attacks it if one sits on a square that the same kind of piece on the target square would
+     * attack, and likewise for sliders along open lines. Cheap leaper checks come first so that most attacks are
+     * found without a sliding piece lookup.
+     *
+     * @return True if the square is attacked
+     */
+    public boolean isAttacked(int square, ChessGame.TeamColor color) {
+        if ((Attacks.pawn(color.opponent(), square) & pieces(color, ChessPiece.PieceType.PAWN)) != 0
+                || (Attacks.knight(square) & pieces(color, ChessPiece.PieceType.KNIGHT)) != 0
+                || (Attacks.king(square) & pieces(color, ChessPiece.PieceType.KING)) != 0) {
+            return true;
+        }
+        long queens = pieces(color, ChessPiece.PieceType.QUEEN);
+        long rooks = pieces(color, ChessPiece.PieceType.ROOK) | queens;
+        long bishops = pieces(color, ChessPiece.PieceType.BISHOP) | queens;
+        return (rooks != 0 && (Attacks.rook(square, occupied) & rooks) != 0)
+                || (bishops != 0 && (Attacks.bishop(square, occupied) & bishops) != 0);
+    }
+
+    /**
+     * @return Square of the given team's king, or NO_SQUARE if none
+     */
+    public int kingSquare(ChessGame.TeamColor color) {
+        long king = pieces(color, ChessPiece.PieceType.KING);
+        return king == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(king);
+    }
+}
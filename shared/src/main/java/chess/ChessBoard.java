@@ -1,8 +1,6 @@
 package chess;
 
-import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -12,23 +10,16 @@ import java.util.Objects;
  */
 public class ChessBoard {
 
-    private final ChessPiece[][] grid;
-    private final HashSet<ChessPosition> whitePositions;
-    private final HashSet<ChessPosition> blackPositions;
+    private static final int EN_PASSANT_UNDO = 1 << 4;
+
+    private final Bitboard bitboard;
 
     public ChessBoard() {
-        grid = new ChessPiece[8][8];
-        whitePositions = new HashSet<>(16);
-        blackPositions = new HashSet<>(16);
+        bitboard = new Bitboard();
     }
 
     public ChessBoard(ChessBoard other) {
-        grid = other.grid.clone();
-        for (int i = 0; i < 8; i++) {
-            grid[i] = other.grid[i].clone();
-        }
-        whitePositions = new HashSet<>(other.whitePositions);
-        blackPositions = new HashSet<>(other.blackPositions);
+        bitboard = new Bitboard(other.bitboard);
     }
 
     @Override
@@ -37,12 +28,12 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(grid, that.grid);
+        return bitboard.equals(that.bitboard);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(grid);
+        return bitboard.hashCode();
     }
 
     /**
@@ -62,24 +53,10 @@ public class ChessBoard {
      * @param piece    Piece to place or null if none
      */
     public void setPiece(ChessPosition position, ChessPiece piece) {
-        ChessPiece oldPiece = grid[position.getRow() - 1][position.getColumn() - 1];
-
-        if (oldPiece != null) {
-            if (oldPiece.getTeamColor() == ChessGame.TeamColor.WHITE) {
-                whitePositions.remove(position);
-            } else {
-                blackPositions.remove(position);
-            }
-        }
-
-        grid[position.getRow() - 1][position.getColumn() - 1] = piece;
-
+        int square = Bitboard.square(position);
+        bitboard.remove(square);
         if (piece != null) {
-            if (piece.getTeamColor() == ChessGame.TeamColor.WHITE) {
-                whitePositions.add(position);
-            } else {
-                blackPositions.add(position);
-            }
+            bitboard.put(square, Bitboard.pieceIndex(piece));
         }
     }
 
@@ -91,7 +68,54 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return grid[position.getRow() - 1][position.getColumn() - 1];
+        return Bitboard.piece(bitboard.pieceAt(Bitboard.square(position)));
+    }
+
+    /**
+     * @return The bitboard representation of this board
+     */
+    public Bitboard getBitboard() {
+        return bitboard;
+    }
+
+    /**
+     * Creates a board from the piece placement field of a FEN string (see {@link Fen#parseBoard})
+     *
+     * @param placement Piece placement, e.g. "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR"
+     * @return Board with the given pieces
+     * @throws IllegalArgumentException if the placement is not valid
+     */
+    public static ChessBoard fromFen(String placement) {
+        return Fen.parseBoard(placement);
+    }
+
+    /**
+     * @return The piece placement field of a FEN string for this board
+     */
+    public String toFen() {
+        return Fen.formatBoard(this);
+    }
+
+    /**
+     * Determines whether any piece of the given team attacks a square
+     *
+     * @param square  Square index (see {@link Bitboard})
+     * @param byColor Team whose pieces to consider
+     * @return True if the square is attacked
+     */
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor byColor) {
+        return bitboard.isAttacked(square, byColor);
+    }
+
+    /**
+     * Determines whether any piece of the given team attacks a position
+     *
+     * @param position Position to check
+     * @param byColor  Team whose pieces to consider
+     * @return True if the position is attacked
+     */
+    public boolean isSquareAttacked(ChessPosition position, ChessGame.TeamColor byColor) {
+        return bitboard.isAttacked(Bitboard.square(position), byColor);
     }
 
     /**
@@ -99,59 +123,122 @@ public class ChessBoard {
      * WARNING: Performs no checks for move validity.
      *
      * @param move Move to apply
+     * @return Information needed to undo the move with {@link #unmakeMove}
+     */
+    public int makeMove(ChessMove move) {
+        return makeMove(PackedMove.of(move));
+    }
+
+    /**
+     * Apply a packed move (see {@link PackedMove}) to the chessboard.
+     * WARNING: Performs no checks for move validity.
+     *
+     * @param move Move to apply
+     * @return Information needed to undo the move with {@link #unmakeMove}
      */
-    public void makeMove(ChessMove move) {
-        ChessPosition start = move.getStartPosition();
-        ChessPiece piece = getPiece(start);
-        ChessPosition end = move.getEndPosition();
-        ChessPiece opponentPiece = getPiece(end);
-        boolean enPassant = piece.getPieceType() == ChessPiece.PieceType.PAWN
-                && start.getColumn() != end.getColumn()
-                && opponentPiece == null;
-        boolean castling = piece.getPieceType() == ChessPiece.PieceType.KING
-                && Math.abs(start.getColumn() - end.getColumn()) == 2;
-
-        setPiece(start, null);
-        if (move.getPromotionPiece() == null) {
-            setPiece(end, piece);
+    public int makeMove(int move) {
+        int start = PackedMove.from(move);
+        int end = PackedMove.to(move);
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        int piece = bitboard.remove(start);
+        int opponentPiece = bitboard.remove(end);
+        ChessPiece.PieceType type = Bitboard.type(piece);
+        boolean enPassant = type == ChessPiece.PieceType.PAWN
+                && Bitboard.column(start) != Bitboard.column(end)
+                && opponentPiece == Bitboard.NO_PIECE;
+        boolean castling = type == ChessPiece.PieceType.KING
+                && Math.abs(start - end) == 2;
+
+        if (promotion == null) {
+            bitboard.put(end, piece);
         } else {
-            setPiece(end, new ChessPiece(piece.getTeamColor(), move.getPromotionPiece()));
+            bitboard.put(end, Bitboard.pieceIndex(Bitboard.color(piece), promotion));
         }
 
         if (enPassant) {
-            setPiece(new ChessPosition(start.getRow(), end.getColumn()), null);
+            opponentPiece = bitboard.remove(enPassantCaptureSquare(start, end));
         }
 
         if (castling) {
-            int castleDirection = (end.getColumn() - start.getColumn()) / 2;
-            int rookColumn = castleDirection == 1 ? 8 : 1;
-            ChessPosition rookStart = new ChessPosition(start.getRow(), rookColumn);
-            ChessPiece rook = getPiece(rookStart);
-            setPiece(rookStart, null);
-            setPiece(end.offsetBy(0, -castleDirection), rook);
+            int castleDirection = (end - start) / 2;
+            int rook = bitboard.remove(castlingRookSquare(start, castleDirection));
+            if (rook != Bitboard.NO_PIECE) {
+                bitboard.put(end - castleDirection, rook);
+            }
         }
+
+        return (opponentPiece + 1) | (enPassant ? EN_PASSANT_UNDO : 0);
     }
 
     /**
-     * @return All positions occupied by the current team.
+     * Revert a move applied with {@link #makeMove}. Moves must be unmade in the reverse order they were made.
+     *
+     * @param move Move to revert
+     * @param undo Value returned by makeMove when the move was applied
      */
-    public HashSet<ChessPosition> teamPositions(ChessGame.TeamColor teamColor) {
-        if (teamColor == ChessGame.TeamColor.WHITE) {
-            return whitePositions;
+    public void unmakeMove(ChessMove move, int undo) {
+        unmakeMove(PackedMove.of(move), undo);
+    }
+
+    /**
+     * Revert a packed move applied with {@link #makeMove}. Moves must be unmade in the reverse order they were made.
+     *
+     * @param move Move to revert
+     * @param undo Value returned by makeMove when the move was applied
+     */
+    public void unmakeMove(int move, int undo) {
+        int start = PackedMove.from(move);
+        int end = PackedMove.to(move);
+        int piece = bitboard.remove(end);
+        int capturedPiece = (undo & ~EN_PASSANT_UNDO) - 1;
+
+        if (PackedMove.promotion(move) == null) {
+            bitboard.put(start, piece);
         } else {
-            return blackPositions;
+            bitboard.put(start, Bitboard.pieceIndex(Bitboard.color(piece), ChessPiece.PieceType.PAWN));
+        }
+
+        if (capturedPiece != Bitboard.NO_PIECE) {
+            bitboard.put((undo & EN_PASSANT_UNDO) != 0 ? enPassantCaptureSquare(start, end) : end, capturedPiece);
+        }
+
+        if (Bitboard.type(piece) == ChessPiece.PieceType.KING && Math.abs(start - end) == 2) {
+            int castleDirection = (end - start) / 2;
+            int rook = bitboard.remove(end - castleDirection);
+            if (rook != Bitboard.NO_PIECE) {
+                bitboard.put(castlingRookSquare(start, castleDirection), rook);
+            }
         }
     }
 
+    private static int enPassantCaptureSquare(int start, int end) {
+        return Bitboard.square(Bitboard.row(start), Bitboard.column(end));
+    }
+
+    private static int castlingRookSquare(int kingStart, int castleDirection) {
+        return Bitboard.square(Bitboard.row(kingStart), castleDirection == 1 ? 8 : 1);
+    }
+
+    /**
+     * @return All positions occupied by the current team.
+     */
+    public HashSet<ChessPosition> teamPositions(ChessGame.TeamColor teamColor) {
+        return positionsOf(bitboard.color(teamColor));
+    }
+
     /**
      * @return All positions occupied by the opposing team.
      */
     public HashSet<ChessPosition> opponentPositions(ChessGame.TeamColor teamColor) {
-        if (teamColor == ChessGame.TeamColor.WHITE) {
-            return blackPositions;
-        } else {
-            return whitePositions;
+        return positionsOf(bitboard.color(teamColor.opponent()));
+    }
+
+    private static HashSet<ChessPosition> positionsOf(long squares) {
+        HashSet<ChessPosition> positions = new HashSet<>(Long.bitCount(squares) * 2);
+        for (; squares != 0; squares &= squares - 1) {
+            positions.add(Bitboard.position(Long.numberOfTrailingZeros(squares)));
         }
+        return positions;
     }
 
     /**
@@ -161,9 +248,8 @@ public class ChessBoard {
      * @return Position of king, or null if none
      */
     public ChessPosition kingPosition(ChessGame.TeamColor teamColor) {
-        return teamPositions(teamColor).stream().dropWhile(
-                (position) -> getPiece(position).getPieceType() != ChessPiece.PieceType.KING
-        ).findFirst().orElse(null);
+        int square = bitboard.kingSquare(teamColor);
+        return square == Bitboard.NO_SQUARE ? null : Bitboard.position(square);
     }
 
     /**
@@ -171,43 +257,25 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        ChessPiece[] whiteRow = {
-                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK),
-                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT),
-                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP),
-                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN),
-                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING),
-                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP),
-                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT),
-                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK),
+        ChessPiece.PieceType[] backRow = {
+                ChessPiece.PieceType.ROOK,
+                ChessPiece.PieceType.KNIGHT,
+                ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.QUEEN,
+                ChessPiece.PieceType.KING,
+                ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.KNIGHT,
+                ChessPiece.PieceType.ROOK,
         };
 
-        ChessPiece[] blackRow = {
-                new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK),
-                new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT),
-                new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP),
-                new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN),
-                new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING),
-                new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP),
-                new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT),
-                new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK),
-        };
-
-        grid[0] = whiteRow;
-        Arrays.fill(grid[1], new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-        for (int i = 2; i < 6; i++) {
-            Arrays.fill(grid[i], null);
-        }
-        Arrays.fill(grid[6], new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
-        grid[7] = blackRow;
-
-        whitePositions.clear();
-        blackPositions.clear();
+        bitboard.clear();
         for (int i = 1; i <= 8; i++) {
-            whitePositions.add(new ChessPosition(1, i));
-            whitePositions.add(new ChessPosition(2, i));
-            blackPositions.add(new ChessPosition(7, i));
-            blackPositions.add(new ChessPosition(8, i));
+            bitboard.put(Bitboard.square(1, i), Bitboard.pieceIndex(ChessGame.TeamColor.WHITE, backRow[i - 1]));
+            bitboard.put(Bitboard.square(2, i),
+                    Bitboard.pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            bitboard.put(Bitboard.square(7, i),
+                    Bitboard.pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            bitboard.put(Bitboard.square(8, i), Bitboard.pieceIndex(ChessGame.TeamColor.BLACK, backRow[i - 1]));
         }
     }
 }
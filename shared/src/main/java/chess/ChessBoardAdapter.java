@@ -0,0 +1,120 @@
+package chess;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a board as the piece placement field of a FEN string. Also reads the two reflective forms older stored
+ * games contain: a {@code grid} of pieces indexed by row and column, or a {@code bitboard} whose {@code mailbox}
+ * holds each square's piece index plus one. Derived fields of either form are ignored and rebuilt from the pieces.
+ */
+class ChessBoardAdapter extends TypeAdapter<ChessBoard> {
+
+    @Override
+    public void write(JsonWriter out, ChessBoard board) throws IOException {
+        if (board == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(Fen.formatBoard(board));
+    }
+
+    @Override
+    public ChessBoard read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token != JsonToken.BEGIN_OBJECT) {
+            String placement = in.nextString();
+            try {
+                return Fen.parseBoard(placement);
+            } catch (IllegalArgumentException e) {
+                throw new JsonSyntaxException(e.getMessage() + " at " + in.getPath(), e);
+            }
+        }
+
+        ChessBoard board = new ChessBoard();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "grid" -> readGrid(in, board);
+                case "bitboard" -> readBitboard(in, board);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return board;
+    }
+
+    private static void readGrid(JsonReader in, ChessBoard board) throws IOException {
+        in.beginArray();
+        for (int row = 1; in.hasNext(); row++) {
+            if (row > 8) {
+                throw new JsonSyntaxException("Grid has more than 8 rows at " + in.getPath());
+            }
+            in.beginArray();
+            for (int col = 1; in.hasNext(); col++) {
+                if (col > 8) {
+                    throw new JsonSyntaxException("Grid has more than 8 columns at " + in.getPath());
+                }
+                ChessPiece piece = readPiece(in);
+                if (piece != null) {
+                    board.addPiece(ChessPosition.of(row, col), piece);
+                }
+            }
+            in.endArray();
+        }
+        in.endArray();
+    }
+
+    private static ChessPiece readPiece(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ChessGame.TeamColor color = null;
+        ChessPiece.PieceType type = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "pieceColor" -> color = ChessJson.readEnum(in, ChessGame.TeamColor.class);
+                case "type" -> type = ChessJson.readEnum(in, ChessPiece.PieceType.class);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (color == null || type == null) {
+            throw new JsonSyntaxException("Piece is missing its color or type at " + in.getPath());
+        }
+        return ChessPiece.of(color, type);
+    }
+
+    private static void readBitboard(JsonReader in, ChessBoard board) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!in.nextName().equals("mailbox")) {
+                in.skipValue();
+                continue;
+            }
+            in.beginArray();
+            for (int square = 0; in.hasNext(); square++) {
+                int piece = in.nextInt() - 1;
+                if (square >= 64 || piece >= Bitboard.PIECE_COUNT) {
+                    throw new JsonSyntaxException("Invalid bitboard mailbox at " + in.getPath());
+                }
+                if (piece >= 0) {
+                    board.getBitboard().put(square, piece);
+                }
+            }
+            in.endArray();
+        }
+        in.endObject();
+    }
+}
@@ -1,8 +1,8 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.stream.Collectors;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -11,10 +11,52 @@ import java.util.stream.Collectors;
  * signature of the existing methods.
  */
 public class ChessGame {
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 1 << 1;
+    public static final int BLACK_KINGSIDE = 1 << 2;
+    public static final int BLACK_QUEENSIDE = 1 << 3;
+    public static final int ALL_CASTLING_RIGHTS = 0xF;
+
+    // Halfmoves without a capture or pawn move after which either team can claim a draw
+    private static final int FIFTY_MOVE_HALFMOVES = 100;
+    // Halfmoves without a capture or pawn move after which the game is drawn automatically
+    private static final int SEVENTY_FIVE_MOVE_HALFMOVES = 150;
+    // Earlier occurrences of a position that let either team claim a draw, or that draw automatically
+    private static final int THREEFOLD_REPETITIONS = 2;
+    private static final int FIVEFOLD_REPETITIONS = 4;
+    // Plies back to the nearest earlier position that can be the same, with the same team to move
+    static final int FIRST_REPETITION_PLIES = 4;
+
+    // Castling rights that remain after a piece moves from or to each square
+    private static final int[] CASTLING_MASKS = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASKS, ALL_CASTLING_RIGHTS);
+        CASTLING_MASKS[Bitboard.square(1, 1)] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASKS[Bitboard.square(1, 5)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASKS[Bitboard.square(1, 8)] &= ~WHITE_KINGSIDE;
+        CASTLING_MASKS[Bitboard.square(8, 1)] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASKS[Bitboard.square(8, 5)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASKS[Bitboard.square(8, 8)] &= ~BLACK_KINGSIDE;
+    }
+
     private TeamColor teamTurn;
     private ChessBoard board;
     private ArrayList<ChessMove> history;
     private boolean isOver;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfmoveClock;
+    private int fullmoveNumber;
+    private transient long[] undoStack = new long[16];
+    // Key of the position before each move, for repetition detection
+    private transient long[] keyStack = new long[16];
+    private transient int undoCount = 0;
+    // Earlier occurrences of the current position since the last capture or pawn move
+    private transient int repetitions;
+    // Status of the position with the cached key, ignoring the move clocks
+    private transient GameStatus cachedStatus;
+    private transient long cachedStatusKey;
 
     public ChessGame() {
         teamTurn = TeamColor.WHITE;
@@ -22,6 +64,44 @@ public class ChessGame {
         board.resetBoard();
         history = new ArrayList<>();
         isOver = false;
+        castlingRights = ALL_CASTLING_RIGHTS;
+        enPassantSquare = Bitboard.NO_SQUARE;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+    }
+
+    /**
+     * Creates a game from the state of a position, e.g. to make moves from a {@link Position} snapshot
+     */
+    ChessGame(ChessBoard board, TeamColor teamTurn, int castlingRights, int enPassantSquare, int halfmoveClock,
+              int fullmoveNumber, ArrayList<ChessMove> history) {
+        this(board, teamTurn, castlingRights, enPassantSquare, halfmoveClock, fullmoveNumber, history, new long[16],
+                new long[16], 0, 0);
+    }
+
+    /**
+     * Creates a game from the state of a position together with what it needs to unmake its last moves and detect
+     * repetitions
+     *
+     * @param undoStack   Undo information of the last {@code undoCount} moves (see {@link MoveUndo}), oldest first
+     * @param keyStack    Key of the position before each of those moves
+     * @param repetitions Earlier occurrences of the current position
+     */
+    ChessGame(ChessBoard board, TeamColor teamTurn, int castlingRights, int enPassantSquare, int halfmoveClock,
+              int fullmoveNumber, ArrayList<ChessMove> history, long[] undoStack, long[] keyStack, int undoCount,
+              int repetitions) {
+        this.teamTurn = teamTurn;
+        this.board = board;
+        this.history = history;
+        this.isOver = false;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        this.undoStack = undoStack;
+        this.keyStack = keyStack;
+        this.undoCount = undoCount;
+        this.repetitions = repetitions;
     }
 
     public ChessGame(ChessGame other) {
@@ -29,6 +109,15 @@ public class ChessGame {
         board = new ChessBoard(other.board);
         history = new ArrayList<>(other.history);
         isOver = other.isOver;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        // Keep the moves made so far, which repetition detection needs and which can then also be unmade
+        undoStack = Arrays.copyOf(other.undoStack, Math.max(other.undoCount, 16));
+        keyStack = Arrays.copyOf(other.keyStack, Math.max(other.undoCount, 16));
+        undoCount = other.undoCount;
+        repetitions = other.repetitions;
     }
 
     /**
@@ -39,8 +128,7 @@ public class ChessGame {
      */
     public ChessGame after(ChessMove move) {
         ChessGame newGame = new ChessGame(this);
-        newGame.board.makeMove(move);
-        newGame.history.add(move);
+        newGame.makeMoveUnchecked(move);
         return newGame;
     }
 
@@ -65,7 +153,14 @@ public class ChessGame {
      */
     public enum TeamColor {
         WHITE,
-        BLACK
+        BLACK;
+
+        /**
+         * @return The color of the opposing team
+         */
+        public TeamColor opponent() {
+            return this == WHITE ? BLACK : WHITE;
+        }
     }
 
     /**
@@ -90,16 +185,24 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        ChessPiece piece = board.getPiece(startPosition);
-        if (piece == null) {
+        if (board.getPiece(startPosition) == null) {
             return null;
         }
-        TeamColor color = piece.getTeamColor();
-        ArrayList<ChessMove> validMoves = potentialMoves(startPosition).stream().filter(
-                (move) -> !this.after(move).isInCheck(color)
-        ).collect(Collectors.toCollection(ArrayList::new));
-        validMoves.addAll(MoveCalculator.specialMoves(this, piece, startPosition));
-        return validMoves;
+        return LegalMoveGenerator.legalMoves(this, startPosition);
+    }
+
+    /**
+     * Determines whether the given move would leave the given team out of check, by making and then unmaking it
+     *
+     * @param move      move to try
+     * @param teamColor team whose king to check
+     * @return True if the team is not in check after the move
+     */
+    boolean leavesKingSafe(ChessMove move, TeamColor teamColor) {
+        makeMoveUnchecked(move);
+        boolean safe = !isInCheck(teamColor);
+        unmakeMove();
+        return safe;
     }
 
     /**
@@ -109,16 +212,122 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        ChessPiece piece = board.getPiece(move.getStartPosition());
-        if (piece == null
-                || piece.getTeamColor() != teamTurn
-                || !validMoves(move.getStartPosition()).contains(move)
-        ) {
+        if (!LegalMoveGenerator.isLegal(this, move)) {
             throw new InvalidMoveException();
         }
-        board.makeMove(move);
-        teamTurn = teamTurn == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
-        history.add(move);
+        makeMoveUnchecked(move);
+    }
+
+    /**
+     * Makes a move in place, so that it can later be reverted with {@link #unmakeMove()}.
+     * WARNING: Performs no checks for move validity.
+     *
+     * @param move chess move to perform
+     */
+    public void makeMoveUnchecked(ChessMove move) {
+        makeMoveUnchecked(PackedMove.of(move));
+    }
+
+    /**
+     * Makes a packed move (see {@link PackedMove}) in place, so that it can later be reverted with
+     * {@link #unmakeMove()}. Together with {@link LegalMoveGenerator#generate(ChessGame, int[])}, this lets searches
+     * walk the move tree without allocating.
+     * WARNING: Performs no checks for move validity.
+     *
+     * @param move packed move to perform
+     */
+    public void makeMoveUnchecked(int move) {
+        Bitboard bitboard = board.getBitboard();
+        int start = PackedMove.from(move);
+        int end = PackedMove.to(move);
+        boolean pawnMove = bitboard.pieceAt(start) != Bitboard.NO_PIECE
+                && Bitboard.type(bitboard.pieceAt(start)) == ChessPiece.PieceType.PAWN;
+        boolean capture = bitboard.pieceAt(end) != Bitboard.NO_PIECE
+                || (pawnMove && Bitboard.column(start) != Bitboard.column(end));
+
+        long key = positionKey();
+        int boardUndo = board.makeMove(move);
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoCount * 2);
+            keyStack = Arrays.copyOf(keyStack, undoCount * 2);
+        }
+        keyStack[undoCount] = key;
+        undoStack[undoCount++] = MoveUndo.pack(boardUndo, castlingRights, enPassantSquare, halfmoveClock,
+                repetitions);
+
+        castlingRights = castlingRightsAfter(castlingRights, start, end);
+        enPassantSquare = pawnMove && Math.abs(end - start) == 16 ? (start + end) / 2 : Bitboard.NO_SQUARE;
+        halfmoveClock = pawnMove || capture ? 0 : halfmoveClock + 1;
+        if (teamTurn == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        teamTurn = teamTurn.opponent();
+        history.add(PackedMove.toChessMove(move));
+        repetitions = countRepetitions();
+    }
+
+    /**
+     * Look for the current position among the earlier positions with the same team to move, back to the last
+     * capture or pawn move, since none before it can be the same. The nearest match already knows how often it
+     * occurred before, so the search stops there, and asking for the count later is free.
+     *
+     * @return Earlier occurrences of the current position
+     */
+    private int countRepetitions() {
+        int oldest = undoCount - Math.min(halfmoveClock, undoCount);
+        if (undoCount - FIRST_REPETITION_PLIES < oldest) {
+            return 0;
+        }
+        long key = positionKey();
+        for (int ply = undoCount - FIRST_REPETITION_PLIES; ply >= oldest; ply -= 2) {
+            if (keyStack[ply] == key) {
+                return MoveUndo.repetitions(undoStack[ply]) + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return Number of moves that can be unmade
+     */
+    int undoCount() {
+        return undoCount;
+    }
+
+    /**
+     * @return Undo information of the move made at the given ply, counting from the oldest move that can be unmade
+     */
+    long undoEntry(int ply) {
+        return undoStack[ply];
+    }
+
+    /**
+     * @return Key of the position before the move made at the given ply, counting as in {@link #undoEntry}
+     */
+    long keyBefore(int ply) {
+        return keyStack[ply];
+    }
+
+    /**
+     * Reverts the last move made with {@link #makeMoveUnchecked} or {@link #makeMove}, restoring the board and game
+     * state to what it was before the move.
+     *
+     * @throws IllegalStateException if there is no move to unmake
+     */
+    public void unmakeMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        long undo = undoStack[--undoCount];
+        board.unmakeMove(PackedMove.of(history.removeLast()), MoveUndo.boardUndo(undo));
+        castlingRights = MoveUndo.castlingRights(undo);
+        enPassantSquare = MoveUndo.enPassantSquare(undo);
+        halfmoveClock = MoveUndo.halfmoveClock(undo);
+        repetitions = MoveUndo.repetitions(undo);
+        teamTurn = teamTurn.opponent();
+        if (teamTurn == TeamColor.BLACK) {
+            fullmoveNumber--;
+        }
     }
 
     /**
@@ -128,14 +337,8 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPosition = board.kingPosition(teamColor);
-        return board.opponentPositions(teamColor).stream()
-                .map(this::potentialMoves)
-                .anyMatch((moves) ->
-                        moves.stream().anyMatch(
-                                (move) -> move.getEndPosition().equals(kingPosition)
-                        )
-                );
+        int king = board.getBitboard().kingSquare(teamColor);
+        return king != Bitboard.NO_SQUARE && board.isSquareAttacked(king, teamColor.opponent());
     }
 
     /**
@@ -145,8 +348,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        return isInCheck(teamColor)
-                && board.teamPositions(teamColor).stream().map(this::validMoves).allMatch(Collection::isEmpty);
+        return isInCheck(teamColor) && !LegalMoveGenerator.hasLegalMoves(this, teamColor);
     }
 
     /**
@@ -157,8 +359,70 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        return !isInCheck(teamColor)
-                && board.teamPositions(teamColor).stream().map(this::validMoves).allMatch(Collection::isEmpty);
+        return !isInCheck(teamColor) && !LegalMoveGenerator.hasLegalMoves(this, teamColor);
+    }
+
+    /**
+     * Determines the status of the game for the team whose turn it is, checking for check and for any legal move
+     * only once. The result is cached against the position key, so asking again for the same position is free. The
+     * move clock and repetition rules are applied on top in constant time, automatic draws first and then draws that
+     * can be claimed, in place of check.
+     *
+     * @return Status of the game
+     */
+    public GameStatus status() {
+        long key = positionKey();
+        GameStatus status = cachedStatus;
+        if (status == null || cachedStatusKey != key) {
+            status = evaluateStatus();
+            cachedStatus = status;
+            cachedStatusKey = key;
+        }
+        if (status.isOver()) {
+            return status;
+        } else if (halfmoveClock >= SEVENTY_FIVE_MOVE_HALFMOVES) {
+            return GameStatus.SEVENTY_FIVE_MOVE_RULE;
+        } else if (repetitions >= FIVEFOLD_REPETITIONS) {
+            return GameStatus.FIVEFOLD_REPETITION;
+        } else if (repetitions >= THREEFOLD_REPETITIONS) {
+            return GameStatus.THREEFOLD_REPETITION;
+        } else if (halfmoveClock >= FIFTY_MOVE_HALFMOVES) {
+            return GameStatus.FIFTY_MOVE_RULE;
+        }
+        return status;
+    }
+
+    private GameStatus evaluateStatus() {
+        boolean inCheck = isInCheck(teamTurn);
+        if (!LegalMoveGenerator.hasLegalMoves(this, teamTurn)) {
+            return inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        }
+        if (hasInsufficientMaterial()) {
+            return GameStatus.INSUFFICIENT_MATERIAL;
+        }
+        return inCheck ? GameStatus.CHECK : GameStatus.ONGOING;
+    }
+
+    /**
+     * Determines whether neither team can possibly checkmate: only kings remain, plus at most one bishop or knight,
+     * or any number of bishops that all stand on the same color of square.
+     */
+    private boolean hasInsufficientMaterial() {
+        Bitboard bitboard = board.getBitboard();
+        long knights = 0;
+        long bishops = 0;
+        for (TeamColor color : TeamColor.values()) {
+            if ((bitboard.pieces(color, ChessPiece.PieceType.PAWN) | bitboard.pieces(color, ChessPiece.PieceType.ROOK)
+                    | bitboard.pieces(color, ChessPiece.PieceType.QUEEN)) != 0) {
+                return false;
+            }
+            knights |= bitboard.pieces(color, ChessPiece.PieceType.KNIGHT);
+            bishops |= bitboard.pieces(color, ChessPiece.PieceType.BISHOP);
+        }
+        if (Long.bitCount(knights | bishops) <= 1) {
+            return true;
+        }
+        return knights == 0 && ((bishops & Bitboard.DARK_SQUARES) == 0 || (bishops & ~Bitboard.DARK_SQUARES) == 0);
     }
 
     /**
@@ -168,6 +432,36 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        castlingRights = initialCastlingRights(board);
+        enPassantSquare = Bitboard.NO_SQUARE;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        undoCount = 0;
+        repetitions = 0;
+    }
+
+    /**
+     * Determine castling rights for a board with no known history, assuming that any king and rook still on their
+     * starting squares have never moved
+     */
+    static int initialCastlingRights(ChessBoard board) {
+        Bitboard bitboard = board.getBitboard();
+        int rights = 0;
+        for (TeamColor color : TeamColor.values()) {
+            int row = color == TeamColor.WHITE ? 1 : 8;
+            int shift = color == TeamColor.WHITE ? 0 : 2;
+            long rooks = bitboard.pieces(color, ChessPiece.PieceType.ROOK);
+            if (bitboard.kingSquare(color) != Bitboard.square(row, 5)) {
+                continue;
+            }
+            if ((rooks & 1L << Bitboard.square(row, 8)) != 0) {
+                rights |= WHITE_KINGSIDE << shift;
+            }
+            if ((rooks & 1L << Bitboard.square(row, 1)) != 0) {
+                rights |= WHITE_QUEENSIDE << shift;
+            }
+        }
+        return rights;
     }
 
     /**
@@ -179,10 +473,113 @@ public class ChessGame {
         return board;
     }
 
+    /**
+     * @return Moves made so far in the game. Move generation only depends on the castling rights, en passant square
+     * and clocks, never on the history, so it is only a record of the game.
+     */
     public ArrayList<ChessMove> getHistory() {
         return history;
     }
 
+    /**
+     * @return Castling rights still available, as a combination of the WHITE_KINGSIDE, WHITE_QUEENSIDE,
+     * BLACK_KINGSIDE and BLACK_QUEENSIDE flags
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return Square a pawn could move to in order to capture en passant, or Bitboard.NO_SQUARE if none
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * @return Number of moves made since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return Number of times the current position occurred before in this game, as far as the moves made on this
+     * object (or the game it was copied from) show
+     */
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    /**
+     * Zobrist key of the position: the pieces on the board, the side to move, the castling rights and the en passant
+     * file. Two positions with the same key are the same position (barring a 64-bit collision), which makes the key
+     * suitable for caches, repetition detection and transposition tables.
+     * <p>
+     * The en passant file is only included if a pawn can actually make the capture, so that a double pawn push with
+     * no pawn beside it does not produce a different key for the same position.
+     *
+     * @return Zobrist key of the current position
+     */
+    public long positionKey() {
+        return positionKey(board.getBitboard(), teamTurn, castlingRights, enPassantSquare);
+    }
+
+    /**
+     * @return Zobrist key of a position with the given pieces and state (see {@link #positionKey()})
+     */
+    static long positionKey(Bitboard bitboard, TeamColor teamTurn, int castlingRights, int enPassantSquare) {
+        long key = bitboard.key() ^ Zobrist.castling(castlingRights);
+        if (teamTurn == TeamColor.BLACK) {
+            key ^= Zobrist.blackToMove();
+        }
+        if (enPassantSquare != Bitboard.NO_SQUARE
+                && (Attacks.pawn(teamTurn.opponent(), enPassantSquare)
+                & bitboard.pieces(teamTurn, ChessPiece.PieceType.PAWN)) != 0) {
+            key ^= Zobrist.enPassant(enPassantSquare);
+        }
+        return key;
+    }
+
+    /**
+     * @return Castling rights that remain after a move between the given squares
+     */
+    static int castlingRightsAfter(int castlingRights, int start, int end) {
+        return castlingRights & CASTLING_MASKS[start] & CASTLING_MASKS[end];
+    }
+
+    /**
+     * Creates a game from a FEN string (see {@link Fen#parse})
+     *
+     * @param fen Position in Forsyth-Edwards Notation
+     * @return Game in the given position, with no history
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    public static ChessGame fromFen(String fen) {
+        return Fen.parse(fen);
+    }
+
+    /**
+     * @return The current position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        return Fen.format(this);
+    }
+
+    /**
+     * @return Immutable snapshot of the current position and history
+     */
+    public Position snapshot() {
+        return Position.of(this);
+    }
+
+    /**
+     * @return Number of the current full move, starting at 1 and increasing after each black move
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
     public boolean getIsOver() {
         return isOver;
     }
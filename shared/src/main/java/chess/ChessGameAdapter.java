@@ -0,0 +1,157 @@
+package chess;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Writes a game as {@code {"version": 1, "fen": ..., "moves": ["e2e4", ...], "isOver": false}}, where the FEN is the
+ * current position and the moves are the history that led to it.
+ * <p>
+ * Games written by reflective Gson have no version field. Those are read from their {@code board} and
+ * {@code teamTurn}, together with the castling, en passant and clock fields if they are present. Games from before
+ * those fields existed are rebuilt by replaying their history when it leads to the stored position, and otherwise
+ * get the castling rights the board allows.
+ * <p>
+ * A game whose history leads from the starting position to its stored position is replayed, so that it comes back
+ * with the earlier positions that repetition detection needs.
+ */
+class ChessGameAdapter extends TypeAdapter<ChessGame> {
+    static final int VERSION = 1;
+
+    private final ChessBoardAdapter boardAdapter = new ChessBoardAdapter();
+    private final ChessMoveAdapter moveAdapter = new ChessMoveAdapter();
+
+    @Override
+    public void write(JsonWriter out, ChessGame game) throws IOException {
+        if (game == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("version").value(VERSION);
+        out.name("fen").value(Fen.format(game));
+        out.name("moves").beginArray();
+        for (ChessMove move : game.getHistory()) {
+            moveAdapter.write(out, move);
+        }
+        out.endArray();
+        out.name("isOver").value(game.getIsOver());
+        out.endObject();
+    }
+
+    @Override
+    public ChessGame read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        int version = 0;
+        String fen = null;
+        ArrayList<ChessMove> moves = new ArrayList<>();
+        boolean isOver = false;
+        ChessBoard board = null;
+        ChessGame.TeamColor teamTurn = ChessGame.TeamColor.WHITE;
+        Integer castlingRights = null;
+        int enPassantSquare = Bitboard.NO_SQUARE;
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "version" -> version = in.nextInt();
+                case "fen" -> fen = in.nextString();
+                case "moves", "history" -> readMoves(in, moves);
+                case "isOver" -> isOver = in.nextBoolean();
+                case "board" -> board = boardAdapter.read(in);
+                case "teamTurn" -> teamTurn = ChessJson.readEnum(in, ChessGame.TeamColor.class);
+                case "castlingRights" -> castlingRights = in.nextInt();
+                case "enPassantSquare" -> enPassantSquare = in.nextInt();
+                case "halfmoveClock" -> halfmoveClock = in.nextInt();
+                case "fullmoveNumber" -> fullmoveNumber = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        ChessGame game;
+        if (version > VERSION) {
+            throw new JsonSyntaxException("Unsupported game version " + version + " at " + in.getPath());
+        } else if (version > 0) {
+            if (fen == null) {
+                throw new JsonSyntaxException("Game is missing its FEN at " + in.getPath());
+            }
+            game = replayed(withHistory(parseFen(fen, in), moves));
+        } else if (board == null) {
+            throw new JsonSyntaxException("Game is missing its board at " + in.getPath());
+        } else if (castlingRights != null) {
+            game = replayed(new ChessGame(board, teamTurn, castlingRights, enPassantSquare, halfmoveClock,
+                    fullmoveNumber, moves));
+        } else {
+            game = replay(moves);
+            if (game == null || !game.getBoard().equals(board) || game.getTeamTurn() != teamTurn) {
+                game = new ChessGame(board, teamTurn, ChessGame.initialCastlingRights(board), Bitboard.NO_SQUARE, 0,
+                        1, moves);
+            }
+        }
+        game.setIsOver(isOver);
+        return game;
+    }
+
+    private void readMoves(JsonReader in, ArrayList<ChessMove> moves) throws IOException {
+        in.beginArray();
+        while (in.hasNext()) {
+            moves.add(moveAdapter.read(in));
+        }
+        in.endArray();
+    }
+
+    private static ChessGame parseFen(String fen, JsonReader in) {
+        try {
+            return Fen.parse(fen);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException(e.getMessage() + " at " + in.getPath(), e);
+        }
+    }
+
+    private static ChessGame withHistory(ChessGame game, ArrayList<ChessMove> history) {
+        return new ChessGame(game.getBoard(), game.getTeamTurn(), game.getCastlingRights(), game.getEnPassantSquare(),
+                game.getHalfmoveClock(), game.getFullmoveNumber(), history);
+    }
+
+    /**
+     * @return The game replayed from the starting position if its history leads to the same position and clocks, or
+     * else the game itself
+     */
+    private static ChessGame replayed(ChessGame game) {
+        ChessGame replayed = replay(game.getHistory());
+        if (replayed == null || replayed.positionKey() != game.positionKey()
+                || replayed.getHalfmoveClock() != game.getHalfmoveClock()
+                || replayed.getFullmoveNumber() != game.getFullmoveNumber()) {
+            return game;
+        }
+        return replayed;
+    }
+
+    /**
+     * Play the moves from the starting position
+     *
+     * @return The resulting game, or null if any move is illegal
+     */
+    private static ChessGame replay(ArrayList<ChessMove> moves) {
+        ChessGame game = new ChessGame();
+        for (ChessMove move : moves) {
+            if (move == null || !move.getStartPosition().isValid() || !LegalMoveGenerator.isLegal(game, move)) {
+                return null;
+            }
+            game.makeMoveUnchecked(move);
+        }
+        return game;
+    }
+}
@@ -0,0 +1,51 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Gson configured with compact type adapters for ChessGame, ChessBoard and ChessMove. A game is written as its FEN
+ * and its history in coordinate notation instead of the reflective form, and games and moves in the reflective form
+ * can still be read.
+ */
+public class ChessJson {
+    private static final Gson GSON = builder().create();
+
+    /**
+     * @return Builder with the chess type adapters registered, for callers that need further configuration
+     */
+    public static GsonBuilder builder() {
+        return new GsonBuilder()
+                .registerTypeAdapter(ChessGame.class, new ChessGameAdapter())
+                .registerTypeAdapter(ChessBoard.class, new ChessBoardAdapter())
+                .registerTypeAdapter(ChessMove.class, new ChessMoveAdapter());
+    }
+
+    /**
+     * @return Shared Gson instance with the chess type adapters registered
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    /**
+     * Read an enum constant written by name, or null
+     */
+    static <T extends Enum<T>> T readEnum(JsonReader in, Class<T> type) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String name = in.nextString();
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("Invalid " + type.getSimpleName() + " " + name + " at " + in.getPath(), e);
+        }
+    }
+}
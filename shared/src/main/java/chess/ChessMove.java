@@ -1,7 +1,6 @@
 package chess;
 
 import java.util.ArrayList;
-import java.util.Objects;
 
 /**
  * Represents moving a chess piece on a chessboard
@@ -10,6 +9,11 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessMove {
+    // No promotion, then the promotion pieces by ordinal (QUEEN to ROOK are 1 to 4)
+    private static final int PROMOTION_SLOTS = 5;
+    // Shared instances, filled in as they are first needed. Every field of ChessMove is final, so a move can be
+    // published through the array without synchronization; a race just means creating a duplicate that is equal.
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64 * PROMOTION_SLOTS];
 
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
@@ -22,16 +26,45 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Get the shared instance for a move, so that generating moves does not allocate them over and over. Moves to
+     * or from positions off the board are not cached, so a new instance is returned for those.
+     *
+     * @return ChessMove with the given start, end and promotion piece
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        if (!startPosition.isValid() || !endPosition.isValid() || promotionPiece == ChessPiece.PieceType.KING
+                || promotionPiece == ChessPiece.PieceType.PAWN) {
+            return new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        return of(Bitboard.square(startPosition), Bitboard.square(endPosition), promotionPiece);
+    }
+
+    /**
+     * Get the shared instance for a move between two squares (see {@link Bitboard} for square numbering)
+     */
+    static ChessMove of(int startSquare, int endSquare, ChessPiece.PieceType promotionPiece) {
+        int promotion = promotionPiece == null ? 0 : promotionPiece.ordinal();
+        int index = (promotion * 64 + startSquare) * 64 + endSquare;
+        ChessMove move = MOVES[index];
+        if (move == null) {
+            move = new ChessMove(Bitboard.position(startSquare), Bitboard.position(endSquare), promotionPiece);
+            MOVES[index] = move;
+        }
+        return move;
+    }
+
     /**
      * Return all possible promotion variants (promotion to queen, bishop, rook, or knight) with a given starting and
      * ending position.
      */
     public static ArrayList<ChessMove> promotionMoves(ChessPosition startPosition, ChessPosition endPosition) {
         ArrayList<ChessMove> moves = new ArrayList<>(4);
-        moves.add(new ChessMove(startPosition, endPosition, ChessPiece.PieceType.QUEEN));
-        moves.add(new ChessMove(startPosition, endPosition, ChessPiece.PieceType.BISHOP));
-        moves.add(new ChessMove(startPosition, endPosition, ChessPiece.PieceType.ROOK));
-        moves.add(new ChessMove(startPosition, endPosition, ChessPiece.PieceType.KNIGHT));
+        moves.add(of(startPosition, endPosition, ChessPiece.PieceType.QUEEN));
+        moves.add(of(startPosition, endPosition, ChessPiece.PieceType.BISHOP));
+        moves.add(of(startPosition, endPosition, ChessPiece.PieceType.ROOK));
+        moves.add(of(startPosition, endPosition, ChessPiece.PieceType.KNIGHT));
         return moves;
     }
 
@@ -47,7 +80,8 @@ public class ChessMove {
 
     @Override
     public int hashCode() {
-        return Objects.hash(startPosition, endPosition, promotionPiece);
+        int hash = 31 * startPosition.hashCode() + endPosition.hashCode();
+        return 31 * hash + (promotionPiece == null ? 0 : promotionPiece.hashCode());
     }
 
     @Override
@@ -59,6 +93,43 @@ public class ChessMove {
         return string;
     }
 
+    /**
+     * @return The move in coordinate notation, e.g. "e2e4" or "e7e8q"
+     */
+    public String toCoordinateNotation() {
+        String notation = startPosition.toAlgebraicNotation() + endPosition.toAlgebraicNotation();
+        if (promotionPiece == ChessPiece.PieceType.KNIGHT) {
+            notation += "n";
+        } else if (promotionPiece != null) {
+            notation += Character.toLowerCase(promotionPiece.toString().charAt(0));
+        }
+        return notation;
+    }
+
+    /**
+     * @param notation Move in coordinate notation, e.g. "e2e4" or "e7e8q"
+     * @return The move
+     * @throws IllegalArgumentException if the notation is not a valid move
+     */
+    public static ChessMove fromCoordinateNotation(String notation) {
+        if (notation.length() != 4 && notation.length() != 5) {
+            throw new IllegalArgumentException("Invalid move: " + notation);
+        }
+        ChessPosition start = ChessPosition.fromAlgebraicNotation(notation.substring(0, 2));
+        ChessPosition end = ChessPosition.fromAlgebraicNotation(notation.substring(2, 4));
+        ChessPiece.PieceType promotion = null;
+        if (notation.length() == 5) {
+            promotion = switch (notation.charAt(4)) {
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                default -> throw new IllegalArgumentException("Invalid promotion piece: " + notation);
+            };
+        }
+        return of(start, end, promotion);
+    }
+
     /**
      * @return ChessPosition of starting location
      */
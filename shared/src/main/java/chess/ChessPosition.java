@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -9,6 +7,15 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessPosition {
+    private static final ChessPosition[] POSITIONS = new ChessPosition[64];
+
+    static {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                POSITIONS[index(row, col)] = new ChessPosition(row, col);
+            }
+        }
+    }
 
     private final int row;
     private final int col;
@@ -18,6 +25,25 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Get the shared instance for a position, so that frequently used positions are not allocated over and over.
+     * Positions off the board are not cached, so a new instance is returned for those.
+     *
+     * @param row Row of the position (1 codes for the bottom row)
+     * @param col Column of the position (1 codes for the left column)
+     * @return ChessPosition for the given row and column
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return POSITIONS[index(row, col)];
+    }
+
+    private static int index(int row, int col) {
+        return 8 * (row - 1) + (col - 1);
+    }
+
     /**
      * Return a new ChessPosition offset by given number of rows and columns.
      *
@@ -26,7 +52,7 @@ public class ChessPosition {
      * @return New ChessPosition with given offset
      */
     public ChessPosition offsetBy(int rows, int columns) {
-        return new ChessPosition(row + rows, col + columns);
+        return of(row + rows, col + columns);
     }
 
     @Override
@@ -40,7 +66,7 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return 31 * row + col;
     }
 
     @Override
@@ -74,4 +100,20 @@ public class ChessPosition {
     public String toAlgebraicNotation() {
         return "" + (char) ('a' + col - 1) + (char) ('0' + row);
     }
+
+    /**
+     * @param notation Square in algebraic notation, e.g. "e4"
+     * @return Position of the square
+     * @throws IllegalArgumentException if the notation is not a square on the board
+     */
+    public static ChessPosition fromAlgebraicNotation(String notation) {
+        if (notation.length() != 2) {
+            throw new IllegalArgumentException("Invalid square: " + notation);
+        }
+        ChessPosition position = of(notation.charAt(1) - '0', notation.charAt(0) - 'a' + 1);
+        if (!position.isValid()) {
+            throw new IllegalArgumentException("Invalid square: " + notation);
+        }
+        return position;
+    }
 }
@@ -0,0 +1,195 @@
+package chess;
+
+import java.util.ArrayList;
+
+/**
+ * Parses and formats positions in Forsyth-Edwards Notation, e.g. the starting position is
+ * {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}.
+ */
+public class Fen {
+    public static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECE_LETTERS = "KQBNRPkqbnrp";
+    private static final String CASTLING_LETTERS = "KQkq";
+
+    /**
+     * Parse a full FEN string. The halfmove clock and fullmove number may be left off, in which case they default to
+     * 0 and 1.
+     *
+     * @return Game in the given position, with no history
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    public static ChessGame parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4 || fields.length > 6) {
+            throw new IllegalArgumentException("FEN must have 4 to 6 fields: " + fen);
+        }
+        ChessBoard board = parseBoard(fields[0]);
+        ChessGame.TeamColor turn = switch (fields[1]) {
+            case "w" -> ChessGame.TeamColor.WHITE;
+            case "b" -> ChessGame.TeamColor.BLACK;
+            default -> throw new IllegalArgumentException("Invalid side to move: " + fields[1]);
+        };
+        int castlingRights = parseCastling(fields[2]);
+        int enPassant = fields[3].equals("-") ? Bitboard.NO_SQUARE : parseEnPassant(fields[3], board, turn);
+        int halfmoveClock = fields.length > 4 ? parseNumber(fields[4], 0) : 0;
+        int fullmoveNumber = fields.length > 5 ? parseNumber(fields[5], 1) : 1;
+        return new ChessGame(board, turn, castlingRights, enPassant, halfmoveClock, fullmoveNumber, new ArrayList<>());
+    }
+
+    /**
+     * Parse the piece placement field of a FEN string
+     *
+     * @throws IllegalArgumentException if the field is not valid
+     */
+    public static ChessBoard parseBoard(String placement) {
+        ChessBoard board = new ChessBoard();
+        Bitboard bitboard = board.getBitboard();
+        String[] rows = placement.split("/", -1);
+        if (rows.length != 8) {
+            throw new IllegalArgumentException("Piece placement must have 8 rows: " + placement);
+        }
+        for (int i = 0; i < 8; i++) {
+            int row = 8 - i;
+            int column = 1;
+            for (char c : rows[i].toCharArray()) {
+                if ('1' <= c && c <= '8') {
+                    column += c - '0';
+                } else {
+                    int piece = PIECE_LETTERS.indexOf(c);
+                    if (piece < 0 || column > 8) {
+                        throw new IllegalArgumentException("Invalid piece placement: " + placement);
+                    }
+                    bitboard.put(Bitboard.square(row, column++), piece);
+                }
+            }
+            if (column != 9) {
+                throw new IllegalArgumentException("Row " + row + " does not have 8 squares: " + placement);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * @return The game's position as a full FEN string
+     */
+    public static String format(ChessGame game) {
+        StringBuilder fen = new StringBuilder(formatBoard(game.getBoard()));
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+        int rights = game.getCastlingRights();
+        if (rights == 0) {
+            fen.append('-');
+        }
+        for (int i = 0; i < CASTLING_LETTERS.length(); i++) {
+            if ((rights & castlingFlag(i)) != 0) {
+                fen.append(CASTLING_LETTERS.charAt(i));
+            }
+        }
+        int enPassant = game.getEnPassantSquare();
+        fen.append(' ');
+        fen.append(enPassant == Bitboard.NO_SQUARE ? "-" : Bitboard.position(enPassant).toAlgebraicNotation());
+        fen.append(' ').append(game.getHalfmoveClock());
+        fen.append(' ').append(game.getFullmoveNumber());
+        return fen.toString();
+    }
+
+    /**
+     * @return The piece placement field of a FEN string for the board
+     */
+    public static String formatBoard(ChessBoard board) {
+        Bitboard bitboard = board.getBitboard();
+        StringBuilder placement = new StringBuilder(71);
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int column = 1; column <= 8; column++) {
+                int piece = bitboard.pieceAt(Bitboard.square(row, column));
+                if (piece == Bitboard.NO_PIECE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    placement.append(empty);
+                    empty = 0;
+                }
+                placement.append(PIECE_LETTERS.charAt(piece));
+            }
+            if (empty > 0) {
+                placement.append(empty);
+            }
+            if (row > 1) {
+                placement.append('/');
+            }
+        }
+        return placement.toString();
+    }
+
+    /**
+     * Castling flags in the same order as CASTLING_LETTERS
+     */
+    private static int castlingFlag(int letter) {
+        return switch (letter) {
+            case 0 -> ChessGame.WHITE_KINGSIDE;
+            case 1 -> ChessGame.WHITE_QUEENSIDE;
+            case 2 -> ChessGame.BLACK_KINGSIDE;
+            default -> ChessGame.BLACK_QUEENSIDE;
+        };
+    }
+
+    private static int parseCastling(String field) {
+        if (field.equals("-")) {
+            return 0;
+        }
+        int rights = 0;
+        for (char c : field.toCharArray()) {
+            int letter = CASTLING_LETTERS.indexOf(c);
+            if (letter < 0) {
+                throw new IllegalArgumentException("Invalid castling rights: " + field);
+            }
+            rights |= castlingFlag(letter);
+        }
+        return rights;
+    }
+
+    private static int parseSquare(String field) {
+        if (field.length() != 2 || field.charAt(0) < 'a' || field.charAt(0) > 'h'
+                || field.charAt(1) < '1' || field.charAt(1) > '8') {
+            throw new IllegalArgumentException("Invalid square: " + field);
+        }
+        return Bitboard.square(field.charAt(1) - '0', field.charAt(0) - 'a' + 1);
+    }
+
+    private static int parseEnPassant(String field, ChessBoard board, ChessGame.TeamColor turn) {
+        int square = parseSquare(field);
+        checkEnPassant(square, board, turn);
+        return square;
+    }
+
+    /**
+     * Check that an en passant square is behind a pawn of the team that just moved, on the empty square it passed
+     * over with a double push
+     *
+     * @throws IllegalArgumentException if it isn't
+     */
+    static void checkEnPassant(int square, ChessBoard board, ChessGame.TeamColor turn) {
+        boolean white = turn == ChessGame.TeamColor.WHITE;
+        Bitboard bitboard = board.getBitboard();
+        int pawn = Bitboard.pieceIndex(turn.opponent(), ChessPiece.PieceType.PAWN);
+        if (Bitboard.row(square) != (white ? 6 : 3) || bitboard.pieceAt(square) != Bitboard.NO_PIECE
+                || bitboard.pieceAt(white ? square - 8 : square + 8) != pawn) {
+            throw new IllegalArgumentException("No pawn can be captured en passant on "
+                    + Bitboard.position(square).toAlgebraicNotation());
+        }
+    }
+
+    private static int parseNumber(String field, int minimum) {
+        try {
+            int number = Integer.parseInt(field);
+            if (number < minimum) {
+                throw new IllegalArgumentException("Invalid move number: " + field);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid move number: " + field, e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package chess;
+
+/**
+ * Status of a game from the point of view of the team whose turn it is
+ */
+public enum GameStatus {
+    /**
+     * The team to move has legal moves and is not in check
+     */
+    ONGOING(false),
+    /**
+     * The team to move is in check but has legal moves
+     */
+    CHECK(false),
+    /**
+     * The team to move is in check and has no legal moves, so it has lost
+     */
+    CHECKMATE(true),
+    /**
+     * The team to move is not in check but has no legal moves, so the game is drawn
+     */
+    STALEMATE(true),
+    /**
+     * Neither team has enough material left to checkmate, so the game is drawn
+     */
+    INSUFFICIENT_MATERIAL(true),
+    /**
+     * 75 moves by each team have passed without a capture or pawn move, so the game is drawn
+     */
+    SEVENTY_FIVE_MOVE_RULE(true),
+    /**
+     * The same position has occurred for the fifth time, so the game is drawn
+     */
+    FIVEFOLD_REPETITION(true),
+    /**
+     * The same position has occurred for the third time, so either team can claim a draw
+     */
+    THREEFOLD_REPETITION(false, true),
+    /**
+     * 50 moves by each team have passed without a capture or pawn move, so either team can claim a draw
+     */
+    FIFTY_MOVE_RULE(false, true);
+
+    private final boolean over;
+    private final boolean drawClaimable;
+
+    GameStatus(boolean over) {
+        this(over, false);
+    }
+
+    GameStatus(boolean over, boolean drawClaimable) {
+        this.over = over;
+        this.drawClaimable = drawClaimable;
+    }
+
+    /**
+     * @return Whether the game has ended
+     */
+    public boolean isOver() {
+        return over;
+    }
+
+    /**
+     * @return Whether the game has ended in a draw
+     */
+    public boolean isDraw() {
+        return over && this != CHECKMATE;
+    }
+
+    /**
+     * @return Whether the game goes on unless either team claims the draw it is entitled to
+     */
+    public boolean isDrawClaimable() {
+        return drawClaimable;
+    }
+}
@@ -0,0 +1,314 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Generates only legal moves, without trying each move and testing for check afterward.
+ * <p>
+ * The checking pieces, pinned pieces and the set of squares that resolve a check are computed once per position.
+ * Each piece's moves are then restricted to those squares (and, if it is pinned, to the line it is pinned along),
+ * and the king only moves to squares the opponent does not attack.
+ */
+public class LegalMoveGenerator {
+    /**
+     * Size of move buffer that can hold every legal move in any position (the most known is 218)
+     */
+    public static final int MAX_MOVES = 256;
+
+    // One piece has at most 27 moves (a queen in the middle of an open board)
+    private static final int MAX_PIECE_MOVES = 32;
+    private static final long ALL_SQUARES = -1L;
+
+    /**
+     * Calculates all legal moves for the team whose turn it is
+     *
+     * @return Collection of legal moves
+     */
+    public static Collection<ChessMove> legalMoves(ChessGame game) {
+        return legalMoves(game, game.getTeamTurn());
+    }
+
+    /**
+     * Calculates all legal moves for the given team
+     *
+     * @return Collection of legal moves
+     */
+    public static Collection<ChessMove> legalMoves(ChessGame game, ChessGame.TeamColor color) {
+        int[] moves = new int[MAX_MOVES];
+        return toChessMoves(moves, generate(game, color, ALL_SQUARES, moves, MAX_MOVES));
+    }
+
+    /**
+     * Calculates all legal moves for the piece at the given position
+     *
+     * @return Collection of legal moves, which is empty if there is no piece at the position
+     */
+    public static Collection<ChessMove> legalMoves(ChessGame game, ChessPosition position) {
+        ChessPiece piece = game.getBoard().getPiece(position);
+        if (piece == null) {
+            return new ArrayList<>(0);
+        }
+        int[] moves = new int[MAX_PIECE_MOVES];
+        long from = 1L << Bitboard.square(position);
+        return toChessMoves(moves, generate(game, piece.getTeamColor(), from, moves, MAX_PIECE_MOVES));
+    }
+
+    /**
+     * Generate all legal moves for the team whose turn it is into a buffer, without allocating
+     *
+     * @param moves Buffer to fill with packed moves (see {@link PackedMove}), of at least MAX_MOVES entries
+     * @return Number of moves generated
+     */
+    public static int generate(ChessGame game, int[] moves) {
+        return generate(game, game.getTeamTurn(), ALL_SQUARES, moves, MAX_MOVES);
+    }
+
+    /**
+     * Determines whether the given team has any legal move. This stops generating as soon as one piece has a legal
+     * move, so it is much cheaper than generating every move when there are some.
+     *
+     * @return True if the team has at least one legal move
+     */
+    public static boolean hasLegalMoves(ChessGame game, ChessGame.TeamColor color) {
+        return generate(game, color, ALL_SQUARES, new int[MAX_PIECE_MOVES], 1) > 0;
+    }
+
+    /**
+     * Determines whether a move is legal for the team whose turn it is
+     *
+     * @return True if the move is legal
+     */
+    public static boolean isLegal(ChessGame game, ChessMove move) {
+        ChessPiece piece = game.getBoard().getPiece(move.getStartPosition());
+        if (piece == null || piece.getTeamColor() != game.getTeamTurn() || !move.getEndPosition().isValid()) {
+            return false;
+        }
+        int[] moves = new int[MAX_PIECE_MOVES];
+        long from = 1L << Bitboard.square(move.getStartPosition());
+        int count = generate(game, piece.getTeamColor(), from, moves, MAX_PIECE_MOVES);
+        int packed = PackedMove.of(move);
+        for (int i = 0; i < count; i++) {
+            if (PackedMove.withoutFlags(moves[i]) == packed) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ArrayList<ChessMove> toChessMoves(int[] moves, int count) {
+        ArrayList<ChessMove> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(PackedMove.toChessMove(moves[i]));
+        }
+        return list;
+    }
+
+    /**
+     * Add all legal moves for the given team's pieces on the given squares to a buffer of packed moves, stopping
+     * after the first piece that brings the number of moves up to the limit
+     *
+     * @return Number of moves in the buffer
+     */
+    private static int generate(ChessGame game, ChessGame.TeamColor color, long from, int[] moves, int limit) {
+        int enPassant = color == game.getTeamTurn() ? game.getEnPassantSquare() : Bitboard.NO_SQUARE;
+        return generate(game.getBoard().getBitboard(), color, game.getCastlingRights(), enPassant, from, moves, limit);
+    }
+
+    /**
+     * Add all legal moves for the given team's pieces on the given squares to a buffer of packed moves, given the
+     * castling rights and the square the team can capture en passant on (if any)
+     *
+     * @return Number of moves in the buffer
+     */
+    static int generate(Bitboard bitboard, ChessGame.TeamColor color, int castlingRights, int enPassant,
+                        long from, int[] moves, int limit) {
+        ChessGame.TeamColor opponent = color.opponent();
+        long own = bitboard.color(color);
+        long enemies = bitboard.color(opponent);
+        long occupied = bitboard.occupied();
+        int king = bitboard.kingSquare(color);
+        int count = 0;
+
+        long checkers = 0;
+        long evasions = ALL_SQUARES;
+        long pinned = 0;
+        if (king != Bitboard.NO_SQUARE) {
+            checkers = bitboard.attackersTo(king, opponent, occupied);
+            if (Long.bitCount(checkers) > 1) {
+                evasions = 0;
+            } else if (checkers != 0) {
+                evasions = checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+            }
+            pinned = pinnedPieces(bitboard, king, color);
+
+            if ((from & 1L << king) != 0) {
+                count = addKingMoves(bitboard, color, castlingRights, king, checkers != 0, moves, count);
+                if (count >= limit) {
+                    return count;
+                }
+            }
+        }
+
+        long pieces = own & from & ~bitboard.pieces(color, ChessPiece.PieceType.KING);
+        if (evasions == 0) {
+            return count;
+        }
+        for (; pieces != 0 && count < limit; pieces &= pieces - 1) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            int piece = bitboard.pieceAt(square);
+            long allowed = evasions;
+            if ((pinned & 1L << square) != 0) {
+                allowed &= Attacks.lineThrough(king, square);
+            }
+            ChessPiece.PieceType type = Bitboard.type(piece);
+            if (type == ChessPiece.PieceType.PAWN) {
+                count = addPawnMoves(bitboard, color, enPassant, square, king, allowed, moves, count);
+                continue;
+            }
+            long targets = switch (type) {
+                case QUEEN -> Attacks.queen(square, occupied);
+                case BISHOP -> Attacks.bishop(square, occupied);
+                case KNIGHT -> Attacks.knight(square);
+                case ROOK -> Attacks.rook(square, occupied);
+                default -> 0;
+            };
+            count = addMoves(square, targets & ~own & allowed, enemies, moves, count);
+        }
+        return count;
+    }
+
+    /**
+     * @return Set of the given team's pieces that are the only piece between their king and an opposing slider
+     */
+    private static long pinnedPieces(Bitboard bitboard, int king, ChessGame.TeamColor color) {
+        ChessGame.TeamColor opponent = color.opponent();
+        long queens = bitboard.pieces(opponent, ChessPiece.PieceType.QUEEN);
+        long opponents = bitboard.color(opponent);
+        long snipers = (Attacks.rook(king, opponents) & (bitboard.pieces(opponent, ChessPiece.PieceType.ROOK) | queens))
+                | (Attacks.bishop(king, opponents) & (bitboard.pieces(opponent, ChessPiece.PieceType.BISHOP) | queens));
+        long pinned = 0;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Attacks.between(king, Long.numberOfTrailingZeros(snipers)) & bitboard.occupied();
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & bitboard.color(color);
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * Add the king's moves to safe squares, including castling
+     */
+    private static int addKingMoves(Bitboard bitboard, ChessGame.TeamColor color, int castlingRights, int king,
+                                    boolean inCheck, int[] moves, int count) {
+        ChessGame.TeamColor opponent = color.opponent();
+        // The king must not block attacks on the squares behind it
+        long occupied = bitboard.occupied() & ~(1L << king);
+        long targets = Attacks.king(king) & ~bitboard.color(color);
+        long safe = 0;
+        for (long remaining = targets; remaining != 0; remaining &= remaining - 1) {
+            int target = Long.numberOfTrailingZeros(remaining);
+            if (bitboard.attackersTo(target, opponent, occupied) == 0) {
+                safe |= 1L << target;
+            }
+        }
+        count = addMoves(king, safe, bitboard.color(opponent), moves, count);
+
+        if (inCheck) {
+            return count;
+        }
+        int row = color == ChessGame.TeamColor.WHITE ? 1 : 8;
+        int shift = color == ChessGame.TeamColor.WHITE ? 0 : 2;
+        if (king != Bitboard.square(row, 5)) {
+            return count;
+        }
+        long rooks = bitboard.pieces(color, ChessPiece.PieceType.ROOK);
+        int rights = castlingRights >>> shift;
+        if ((rights & ChessGame.WHITE_KINGSIDE) != 0
+                && (rooks & 1L << (king + 3)) != 0
+                && (Attacks.between(king, king + 3) & bitboard.occupied()) == 0
+                && (safe & 1L << (king + 1)) != 0
+                && bitboard.attackersTo(king + 2, opponent, bitboard.occupied()) == 0) {
+            moves[count++] = PackedMove.of(king, king + 2, null, PackedMove.CASTLING);
+        }
+        if ((rights & ChessGame.WHITE_QUEENSIDE) != 0
+                && (rooks & 1L << (king - 4)) != 0
+                && (Attacks.between(king, king - 4) & bitboard.occupied()) == 0
+                && (safe & 1L << (king - 1)) != 0
+                && bitboard.attackersTo(king - 2, opponent, bitboard.occupied()) == 0) {
+            moves[count++] = PackedMove.of(king, king - 2, null, PackedMove.CASTLING);
+        }
+        return count;
+    }
+
+    /**
+     * Add a pawn's pushes, captures, promotions and en passant captures restricted to the allowed squares
+     */
+    private static int addPawnMoves(Bitboard bitboard, ChessGame.TeamColor color, int enPassant, int square,
+                                    int king, long allowed, int[] moves, int count) {
+        long empty = ~bitboard.occupied();
+        long pushes;
+        if (color == ChessGame.TeamColor.WHITE) {
+            pushes = 1L << square << 8 & empty;
+            pushes |= (pushes & Bitboard.RANK_1 << 16) << 8 & empty;
+        } else {
+            pushes = 1L << square >>> 8 & empty;
+            pushes |= (pushes & Bitboard.RANK_8 >>> 16) >>> 8 & empty;
+        }
+        long attacks = Attacks.pawn(color, square);
+        long enemies = bitboard.color(color.opponent());
+        long targets = (pushes | attacks & enemies) & allowed;
+
+        for (; targets != 0; targets &= targets - 1) {
+            int target = Long.numberOfTrailingZeros(targets);
+            int flags = (enemies & 1L << target) != 0 ? PackedMove.CAPTURE
+                    : Math.abs(target - square) == 16 ? PackedMove.DOUBLE_PUSH : 0;
+            if ((1L << target & (Bitboard.RANK_1 | Bitboard.RANK_8)) != 0) {
+                moves[count++] = PackedMove.of(square, target, ChessPiece.PieceType.QUEEN, flags);
+                moves[count++] = PackedMove.of(square, target, ChessPiece.PieceType.BISHOP, flags);
+                moves[count++] = PackedMove.of(square, target, ChessPiece.PieceType.ROOK, flags);
+                moves[count++] = PackedMove.of(square, target, ChessPiece.PieceType.KNIGHT, flags);
+            } else {
+                moves[count++] = PackedMove.of(square, target, null, flags);
+            }
+        }
+
+        if (enPassant != Bitboard.NO_SQUARE && (attacks & 1L << enPassant) != 0) {
+            int captured = Bitboard.square(Bitboard.row(square), Bitboard.column(enPassant));
+            if ((allowed & (1L << enPassant | 1L << captured)) != 0
+                    && enPassantKeepsKingSafe(bitboard, color, king, square, enPassant, captured)) {
+                moves[count++] = PackedMove.of(square, enPassant, null, PackedMove.CAPTURE | PackedMove.EN_PASSANT);
+            }
+        }
+        return count;
+    }
+    /**
+     * Check whether capturing en passant would expose the king to a sliding piece. This handles both ordinary pins
+     * and the case where both pawns leave the king's rank at once.
+     */
+    private static boolean enPassantKeepsKingSafe(Bitboard bitboard, ChessGame.TeamColor color, int king,
+                                                  int from, int to, int captured) {
+        if (king == Bitboard.NO_SQUARE) {
+            return true;
+        }
+        ChessGame.TeamColor opponent = color.opponent();
+        long occupied = bitboard.occupied() ^ (1L << from | 1L << to | 1L << captured);
+        long queens = bitboard.pieces(opponent, ChessPiece.PieceType.QUEEN);
+        return (Attacks.rook(king, occupied) & (bitboard.pieces(opponent, ChessPiece.PieceType.ROOK) | queens)) == 0
+                && (Attacks.bishop(king, occupied)
+                & (bitboard.pieces(opponent, ChessPiece.PieceType.BISHOP) | queens)) == 0;
+    }
+
+    /**
+     * Add a move from the given square to each of the target squares
+     */
+    private static int addMoves(int square, long targets, long enemies, int[] moves, int count) {
+        for (; targets != 0; targets &= targets - 1) {
+            int target = Long.numberOfTrailingZeros(targets);
+            int flags = (enemies & 1L << target) != 0 ? PackedMove.CAPTURE : 0;
+            moves[count++] = PackedMove.of(square, target, null, flags);
+        }
+        return count;
+    }
+}
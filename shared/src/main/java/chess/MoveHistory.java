@@ -0,0 +1,96 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Immutable, persistent list of the moves made in a game. Adding a move creates a new history that shares every
+ * earlier move with the old one, so positions derived from each other share their histories instead of copying them.
+ */
+public final class MoveHistory implements Iterable<ChessMove> {
+    private static final MoveHistory EMPTY = new MoveHistory(null, null, 0);
+
+    private final ChessMove last;
+    private final MoveHistory previous;
+    private final int size;
+
+    private MoveHistory(ChessMove last, MoveHistory previous, int size) {
+        this.last = last;
+        this.previous = previous;
+        this.size = size;
+    }
+
+    /**
+     * @return History with no moves
+     */
+    public static MoveHistory empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return History of the given moves, in the order they were made
+     */
+    public static MoveHistory of(List<ChessMove> moves) {
+        MoveHistory history = EMPTY;
+        for (ChessMove move : moves) {
+            history = history.plus(move);
+        }
+        return history;
+    }
+
+    /**
+     * @return New history with the given move made after the moves in this one
+     */
+    public MoveHistory plus(ChessMove move) {
+        return new MoveHistory(move, this, size + 1);
+    }
+
+    /**
+     * @return Most recent move, or null if there are none
+     */
+    public ChessMove last() {
+        return last;
+    }
+
+    /**
+     * @return History without the most recent move, or the empty history if there are no moves
+     */
+    public MoveHistory previous() {
+        return size == 0 ? this : previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return The moves in the order they were made, as a new list
+     */
+    public ArrayList<ChessMove> toList() {
+        ArrayList<ChessMove> moves = new ArrayList<>(Collections.nCopies(size, null));
+        int i = size;
+        for (MoveHistory history = this; history.size > 0; history = history.previous) {
+            moves.set(--i, history.last);
+        }
+        return moves;
+    }
+
+    /**
+     * Iterates over the moves in the order they were made
+     */
+    @Override
+    public Iterator<ChessMove> iterator() {
+        return Collections.unmodifiableList(toList()).iterator();
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
@@ -0,0 +1,43 @@
+package chess;
+
+/**
+ * Packs everything needed to unmake a move on a {@link ChessGame} into a single long, so that making and unmaking
+ * moves does not allocate: the board's undo information, plus the castling rights, en passant square, halfmove
+ * clock and repetition count from before the move.
+ */
+class MoveUndo {
+    private static final int CASTLING_SHIFT = 8;
+    private static final int EN_PASSANT_SHIFT = 12;
+    private static final int HALFMOVE_SHIFT = 20;
+    private static final int REPETITIONS_SHIFT = 52;
+    // Repetition counts past this are stored as this, which is more than any draw rule needs
+    static final int MAX_REPETITIONS = 0xF;
+
+    static long pack(int boardUndo, int castlingRights, int enPassantSquare, int halfmoveClock, int repetitions) {
+        return boardUndo
+                | (long) castlingRights << CASTLING_SHIFT
+                | (long) (enPassantSquare + 1) << EN_PASSANT_SHIFT
+                | (long) halfmoveClock << HALFMOVE_SHIFT
+                | (long) Math.min(repetitions, MAX_REPETITIONS) << REPETITIONS_SHIFT;
+    }
+
+    static int boardUndo(long undo) {
+        return (int) (undo & 0xFF);
+    }
+
+    static int castlingRights(long undo) {
+        return (int) (undo >>> CASTLING_SHIFT & 0xF);
+    }
+
+    static int enPassantSquare(long undo) {
+        return (int) (undo >>> EN_PASSANT_SHIFT & 0x7F) - 1;
+    }
+
+    static int halfmoveClock(long undo) {
+        return (int) (undo >>> HALFMOVE_SHIFT & 0xFFFFFFFFL);
+    }
+
+    static int repetitions(long undo) {
+        return (int) (undo >>> REPETITIONS_SHIFT);
+    }
+}
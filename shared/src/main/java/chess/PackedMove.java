@@ -0,0 +1,93 @@
+package chess;
+
+/**
+ * Moves packed into an int, used internally by move generation so that generating a move never allocates.
+ * <p>
+ * Bits 0-5 hold the start square and bits 6-11 the end square (see {@link Bitboard} for square numbering). Bits
+ * 12-14 hold the promotion piece's type ordinal, or 0 for no promotion. The remaining bits are flags describing the
+ * move, which the generator fills in and which are only informational: making a move works the same without them.
+ */
+public class PackedMove {
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int EN_PASSANT = 1 << 16;
+    public static final int CASTLING = 1 << 17;
+    public static final int DOUBLE_PUSH = 1 << 18;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0x7;
+    private static final int MOVE_MASK = (1 << 15) - 1;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    /**
+     * @return Packed move from one square to another, with no promotion or flags
+     */
+    public static int of(int from, int to) {
+        return from | to << TO_SHIFT;
+    }
+
+    /**
+     * @return Packed move from one square to another with the given promotion piece (or null) and flags
+     */
+    public static int of(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int move = from | to << TO_SHIFT | flags;
+        if (promotion != null) {
+            move |= promotion.ordinal() << PROMOTION_SHIFT;
+        }
+        return move;
+    }
+
+    /**
+     * @return Packed equivalent of the given move, with no flags
+     */
+    public static int of(ChessMove move) {
+        return of(Bitboard.square(move.getStartPosition()), Bitboard.square(move.getEndPosition()),
+                move.getPromotionPiece(), 0);
+    }
+
+    /**
+     * @return Start square of the move
+     */
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    /**
+     * @return End square of the move
+     */
+    public static int to(int move) {
+        return move >>> TO_SHIFT & SQUARE_MASK;
+    }
+
+    /**
+     * @return Type of piece the move promotes to, or null if none
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotion = move >>> PROMOTION_SHIFT & PROMOTION_MASK;
+        return promotion == 0 ? null : TYPES[promotion];
+    }
+
+    /**
+     * @return The move with its flags cleared, so that it can be compared with moves packed without flags
+     */
+    public static int withoutFlags(int move) {
+        return move & MOVE_MASK;
+    }
+
+    /**
+     * @return Whether the move has all of the given flags
+     */
+    public static boolean is(int move, int flags) {
+        return (move & flags) == flags;
+    }
+
+    /**
+     * @return The move as a ChessMove (a shared instance, so this does not allocate)
+     */
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(from(move), to(move), promotion(move));
+    }
+}
@@ -0,0 +1,235 @@
+package chess;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft (see {@link Perft}) split across the threads of a ForkJoinPool. Each legal move at the root is a task with its
+ * own copy of the game, and at depths of {@link #SPLIT_DEPTH} or more each of those is split again at the second
+ * ply, so that one large subtree does not leave the other threads idle.
+ * <p>
+ * The counts can optionally be cached in a hash table shared by all threads, keyed by position and remaining depth.
+ * Transpositions are common in perft trees, so this can cut the time of deep runs several times over.
+ */
+public class ParallelPerft implements AutoCloseable {
+    /**
+     * Depth from which root moves are split again at the second ply
+     */
+    public static final int SPLIT_DEPTH = 5;
+
+    private final ForkJoinPool pool;
+    private final Hash hash;
+
+    /**
+     * @param threads Number of threads to count with
+     * @param hashMb  Size of the shared hash table in megabytes, or 0 for none
+     */
+    public ParallelPerft(int threads, int hashMb) {
+        if (threads < 1 || hashMb < 0) {
+            throw new IllegalArgumentException("Perft needs at least one thread and a non-negative hash size");
+        }
+        pool = new ForkJoinPool(threads);
+        hash = hashMb == 0 ? null : new Hash(hashMb);
+    }
+
+    /**
+     * Count the leaf nodes of the legal move tree from the given game to the given depth
+     *
+     * @param game  Game to search from, which is not changed
+     * @param depth Number of plies to search
+     * @return Number of leaf nodes
+     */
+    public long perft(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        return divide(game, depth).values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Count the leaf nodes under each legal move from the given game
+     *
+     * @param game  Game to search from, which is not changed
+     * @param depth Number of plies to search, including the divided move
+     * @return Number of leaf nodes for each legal move, or an empty map if the depth is 0
+     */
+    public Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        LinkedHashMap<ChessMove, Long> counts = new LinkedHashMap<>();
+        if (depth < 1) {
+            return counts;
+        }
+        int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+        int count = LegalMoveGenerator.generate(game, moves);
+        List<ForkJoinTask<Long>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(pool.submit(new Subtree(game, moves[i], depth - 1, true)));
+        }
+        for (int i = 0; i < count; i++) {
+            counts.put(PackedMove.toChessMove(moves[i]), tasks.get(i).join());
+        }
+        return counts;
+    }
+
+    /**
+     * Shut down the threads
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Counts the leaf nodes below one move
+     */
+    private class Subtree extends RecursiveTask<Long> {
+        private final ChessGame parent;
+        private final int move;
+        private final int depth;
+        private final boolean split;
+
+        /**
+         * @param parent Game before the move, which is copied so that it is not changed
+         * @param depth  Plies left to search after the move
+         * @param split  Whether this task may split its children into tasks of their own
+         */
+        Subtree(ChessGame parent, int move, int depth, boolean split) {
+            this.parent = parent;
+            this.move = move;
+            this.depth = depth;
+            this.split = split;
+        }
+
+        @Override
+        protected Long compute() {
+            ChessGame game = new ChessGame(parent);
+            game.makeMoveUnchecked(move);
+            if (depth == 0) {
+                return 1L;
+            }
+            if (split && depth + 1 >= SPLIT_DEPTH) {
+                int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+                int count = LegalMoveGenerator.generate(game, moves);
+                List<Subtree> children = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    children.add(new Subtree(game, moves[i], depth - 1, false));
+                }
+                long nodes = 0;
+                for (Subtree child : ForkJoinTask.invokeAll(children)) {
+                    nodes += child.join();
+                }
+                return nodes;
+            }
+            int[][] buffers = new int[depth][LegalMoveGenerator.MAX_MOVES];
+            return hash == null ? Perft.perft(game, depth, buffers) : perft(game, depth, buffers);
+        }
+    }
+
+    /**
+     * Sequential perft that looks up and stores the count of every subtree of depth 2 or more in the hash
+     */
+    private long perft(ChessGame game, int depth, int[][] buffers) {
+        int[] moves = buffers[depth - 1];
+        int count = LegalMoveGenerator.generate(game, moves);
+        if (depth == 1) {
+            return count;
+        }
+        long key = game.positionKey();
+        long nodes = hash.get(key, depth);
+        if (nodes >= 0) {
+            return nodes;
+        }
+        nodes = 0;
+        for (int i = 0; i < count; i++) {
+            game.makeMoveUnchecked(moves[i]);
+            nodes += perft(game, depth - 1, buffers);
+            game.unmakeMove();
+        }
+        hash.put(key, depth, nodes);
+        return nodes;
+    }
+
+    /**
+     * Lock-free table of subtree counts, two longs per entry: the key XOR the data, then the data, where the data is
+     * the count shifted left 8 bits plus the depth. An entry torn by concurrent writes fails the XOR check and reads
+     * as a miss. New counts always replace old ones.
+     */
+    private static class Hash {
+        private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+        private final long[] slots;
+        private final int mask;
+
+        Hash(int sizeMb) {
+            int entries = Integer.highestOneBit((int) Math.min((long) sizeMb * 1024 * 1024 / 16, 1 << 29));
+            slots = new long[entries * 2];
+            mask = entries - 1;
+        }
+
+        /**
+         * @return Count for the position and depth, or -1 if it is not stored
+         */
+        long get(long key, int depth) {
+            int index = index(key) * 2;
+            long data = (long) SLOTS.getOpaque(slots, index + 1);
+            if (data == 0 || ((long) SLOTS.getOpaque(slots, index) ^ data) != key || (data & 0xFF) != depth) {
+                return -1;
+            }
+            return data >>> 8;
+        }
+
+        void put(long key, int depth, long nodes) {
+            int index = index(key) * 2;
+            long data = nodes << 8 | depth;
+            SLOTS.setOpaque(slots, index, key ^ data);
+            SLOTS.setOpaque(slots, index + 1, data);
+        }
+
+        private int index(long key) {
+            return (int) (key >>> 32) & mask;
+        }
+    }
+
+    /**
+     * Usage: {@code ParallelPerft <depth> [threads] [hash MB]}, which runs from the starting position with 1 thread,
+     * then 2, 4 and so on up to the given number of threads (the number of processors by default)
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: ParallelPerft <depth> [threads] [hash MB]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int hashMb = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+
+        // Warm up the JIT so that the 1-thread baseline is not penalized
+        try (ParallelPerft warmup = new ParallelPerft(1, 0)) {
+            warmup.perft(new ChessGame(), Math.min(depth, 5));
+        }
+
+        double baseline = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            long nodes;
+            double seconds;
+            try (ParallelPerft perft = new ParallelPerft(threads, hashMb)) {
+                long start = System.nanoTime();
+                nodes = perft.perft(new ChessGame(), depth);
+                seconds = (System.nanoTime() - start) / 1e9;
+            }
+            double rate = nodes / seconds;
+            baseline = threads == 1 ? rate : baseline;
+            System.out.printf("%d threads: %d nodes in %.3f s (%.0f nodes/s, %.2fx)%n", threads, nodes, seconds, rate,
+                    rate / baseline);
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+}
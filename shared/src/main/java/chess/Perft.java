@@ -0,0 +1,90 @@
+package chess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Performance test (perft) driver: counts the leaf nodes of the legal move tree to a fixed depth. Node counts for
+ * well-known positions are published, so perft checks the move generator's correctness and speed at the same time.
+ * <p>
+ * Usage: {@code Perft <depth> [divide]}, which runs from the starting position.
+ */
+public class Perft {
+
+    /**
+     * Count the leaf nodes of the legal move tree from the given game to the given depth
+     *
+     * @param game  Game to search from, which is restored before returning
+     * @param depth Number of plies to search
+     * @return Number of leaf nodes
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        return perft(game, depth, new int[depth][LegalMoveGenerator.MAX_MOVES]);
+    }
+
+    /**
+     * Count leaf nodes using one preallocated move buffer per ply, so that the search does not allocate
+     */
+    static long perft(ChessGame game, int depth, int[][] buffers) {
+        int[] moves = buffers[depth - 1];
+        int count = LegalMoveGenerator.generate(game, moves);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            game.makeMoveUnchecked(moves[i]);
+            nodes += perft(game, depth - 1, buffers);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Count the leaf nodes under each legal move from the given game, which makes it easy to track down which move
+     * a wrong total comes from
+     *
+     * @param game  Game to search from, which is restored before returning
+     * @param depth Number of plies to search, including the divided move
+     * @return Number of leaf nodes for each legal move
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        LinkedHashMap<ChessMove, Long> counts = new LinkedHashMap<>();
+        for (ChessMove move : LegalMoveGenerator.legalMoves(game)) {
+            game.makeMoveUnchecked(move);
+            counts.put(move, perft(game, depth - 1));
+            game.unmakeMove();
+        }
+        return counts;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: Perft <depth> [divide]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        boolean divide = args.length > 1 && args[1].equals("divide");
+        ChessGame game = new ChessGame();
+
+        if (divide) {
+            long total = 0;
+            for (Map.Entry<ChessMove, Long> entry : divide(game, depth).entrySet()) {
+                System.out.println(entry.getKey().toCoordinateNotation() + ": " + entry.getValue());
+                total += entry.getValue();
+            }
+            System.out.println("Total: " + total);
+            return;
+        }
+
+        for (int i = 1; i <= depth; i++) {
+            long start = System.nanoTime();
+            long nodes = perft(game, i);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Depth %d: %d nodes in %.3f s (%.0f nodes/s)%n", i, nodes, seconds, nodes / seconds);
+        }
+    }
+}
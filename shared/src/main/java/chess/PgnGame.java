@@ -0,0 +1,115 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game of a PGN file (see {@link PgnReader} and {@link PgnWriter})
+ *
+ * @param tags   Tag pairs in the order they appear, e.g. "White" or "Result"
+ * @param moves  Moves in Standard Algebraic Notation (see {@link San}), without move numbers or annotations
+ * @param result Game termination marker ("1-0", "0-1", "1/2-1/2" or "*"), or null if the movetext has none
+ */
+public record PgnGame(Map<String, String> tags, List<String> moves, String result) {
+    public static final String WHITE_WINS = "1-0";
+    public static final String BLACK_WINS = "0-1";
+    public static final String DRAW = "1/2-1/2";
+    public static final String UNKNOWN = "*";
+
+    /**
+     * Record a game's moves in SAN from its first move. A game that doesn't start from the usual position gets SetUp
+     * and FEN tags for where it does start.
+     *
+     * @param tags   Tags to put first, e.g. "Event" or "White"
+     * @param result Game termination marker, or null to take it from the status of the game
+     * @throws IllegalArgumentException if the game's history doesn't lead to its current position
+     */
+    public static PgnGame of(ChessGame game, Map<String, String> tags, String result) {
+        ChessGame start = start(game);
+        if (result == null) {
+            GameStatus status = game.status();
+            if (status == GameStatus.CHECKMATE) {
+                result = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? BLACK_WINS : WHITE_WINS;
+            } else {
+                result = status.isDraw() ? DRAW : UNKNOWN;
+            }
+        }
+        LinkedHashMap<String, String> allTags = new LinkedHashMap<>(tags);
+        allTags.put("Result", result);
+        String fen = start.toFen();
+        if (!fen.equals(Fen.STARTING_POSITION)) {
+            allTags.put("SetUp", "1");
+            allTags.put("FEN", fen);
+        }
+        ArrayList<String> moves = new ArrayList<>(game.getHistory().size());
+        for (ChessMove move : game.getHistory()) {
+            moves.add(San.format(start, move));
+            start.makeMoveUnchecked(move);
+        }
+        return new PgnGame(allTags, moves, result);
+    }
+
+    /**
+     * @return The game as it was before its first move
+     */
+    private static ChessGame start(ChessGame game) {
+        if (game.undoCount() == game.getHistory().size()) {
+            ChessGame start = new ChessGame(game);
+            while (!start.getHistory().isEmpty()) {
+                start.unmakeMove();
+            }
+            return start;
+        }
+        // Only the last moves can be unmade, e.g. after loading the game, so replay them from the usual start
+        ChessGame start = new ChessGame();
+        for (ChessMove move : game.getHistory()) {
+            if (!LegalMoveGenerator.isLegal(start, move)) {
+                throw new IllegalArgumentException("Game history does not start from a known position");
+            }
+            start.makeMoveUnchecked(move);
+        }
+        if (start.positionKey() != game.positionKey()) {
+            throw new IllegalArgumentException("Game history does not lead to its position");
+        }
+        return new ChessGame();
+    }
+
+    /**
+     * @return Value of the named tag, or null if the game doesn't have it
+     */
+    public String tag(String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * @return Position the game starts from, which is the FEN tag if there is one
+     * @throws IllegalArgumentException if the FEN tag is not valid
+     */
+    public ChessGame startingPosition() {
+        String fen = tag("FEN");
+        return fen == null ? new ChessGame() : Fen.parse(fen);
+    }
+
+    /**
+     * Play the game's moves from its starting position, e.g. to check that they are all legal
+     *
+     * @return The game after its last move
+     * @throws IllegalArgumentException if the FEN tag is not valid, or a move is malformed, illegal or ambiguous
+     */
+    public ChessGame replay() {
+        ChessGame game = startingPosition();
+        for (String san : moves) {
+            int move;
+            try {
+                move = San.parsePacked(game, san);
+            } catch (IllegalArgumentException e) {
+                String dots = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? "." : "...";
+                throw new IllegalArgumentException(e.getMessage() + " at move " + game.getFullmoveNumber() + dots, e);
+            }
+            game.makeMoveUnchecked(move);
+        }
+        return game;
+    }
+}
@@ -0,0 +1,187 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Reads a PGN archive and replays its games on several threads, to import or validate archives of any size. The
+ * calling thread reads the games with a {@link PgnReader}, which costs little next to checking every move, and hands
+ * them to a dedicated ForkJoinPool in batches. Only a few batches per thread are read ahead, so memory use does not
+ * grow with the archive.
+ * <p>
+ * Usage: {@code PgnPipeline <pgn> [threads]}
+ */
+public class PgnPipeline implements Closeable {
+    public static final int BATCH_SIZE = 256;
+    // Batches read but not yet replayed, per thread
+    private static final int BATCHES_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final int threads;
+
+    /**
+     * A game after replaying its moves
+     *
+     * @param pgn   The game as read
+     * @param game  The game after its last move, or null if it could not be replayed
+     * @param error Why the game could not be replayed, or null if it could
+     */
+    public record Replayed(PgnGame pgn, ChessGame game, String error) {
+        public boolean isValid() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Counts of the games in an archive
+     *
+     * @param games   Games read
+     * @param invalid Games with an invalid starting position or move
+     * @param moves   Moves replayed in the valid games
+     */
+    public record Summary(long games, long invalid, long moves) {
+    }
+
+    /**
+     * @param threads Number of threads to replay games on, besides the thread that reads them
+     */
+    public PgnPipeline(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A pipeline needs at least one thread");
+        }
+        this.threads = threads;
+        pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Replay a game on the calling thread
+     *
+     * @return The game, which is invalid if its starting position or any of its moves is
+     */
+    public static Replayed replay(PgnGame pgn) {
+        try {
+            return new Replayed(pgn, pgn.replay(), null);
+        } catch (IllegalArgumentException e) {
+            return new Replayed(pgn, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Read every game of an archive and replay them in parallel. If the consumer throws, reading stops and the
+     * exception or error is rethrown once the games already handed out are done.
+     *
+     * @param consumer Receives each game once it is replayed, on one of the pool's threads and in no particular
+     *                 order, so it must be thread-safe
+     * @return Counts of the games
+     * @throws IOException if reading fails
+     * @throws java.util.concurrent.RejectedExecutionException if the pipeline is closed
+     */
+    public Summary run(Reader reader, Consumer<Replayed> consumer) throws IOException {
+        PgnReader pgn = new PgnReader(reader);
+        int maxBatches = threads * BATCHES_PER_THREAD;
+        Semaphore batches = new Semaphore(maxBatches);
+        LongAdder invalid = new LongAdder();
+        LongAdder moves = new LongAdder();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long games = 0;
+        try {
+            List<PgnGame> batch = new ArrayList<>(BATCH_SIZE);
+            for (PgnGame game = pgn.next(); game != null && failure.get() == null; game = pgn.next()) {
+                games++;
+                batch.add(game);
+                if (batch.size() == BATCH_SIZE) {
+                    submit(batch, batches, consumer, invalid, moves, failure);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(batch, batches, consumer, invalid, moves, failure);
+            }
+        } finally {
+            // Wait for every batch handed out, even if reading failed
+            batches.acquireUninterruptibly(maxBatches);
+        }
+        Throwable thrown = failure.get();
+        if (thrown instanceof RuntimeException e) {
+            throw e;
+        } else if (thrown instanceof Error e) {
+            throw e;
+        } else if (thrown != null) {
+            // Only a consumer that sneaks out a checked exception gets here
+            throw new IllegalStateException(thrown);
+        }
+        return new Summary(games, invalid.sum(), moves.sum());
+    }
+
+    private void submit(List<PgnGame> batch, Semaphore batches, Consumer<Replayed> consumer, LongAdder invalid,
+                        LongAdder moves, AtomicReference<Throwable> failure) {
+        batches.acquireUninterruptibly();
+        try {
+            pool.execute(() -> replayBatch(batch, batches, consumer, invalid, moves, failure));
+        } catch (RuntimeException e) {
+            // The batch never ran, so nothing else will give its permit back
+            batches.release();
+            throw e;
+        }
+    }
+
+    private static void replayBatch(List<PgnGame> batch, Semaphore batches, Consumer<Replayed> consumer,
+                                    LongAdder invalid, LongAdder moves, AtomicReference<Throwable> failure) {
+        try {
+            for (PgnGame game : batch) {
+                Replayed replayed = replay(game);
+                if (replayed.isValid()) {
+                    moves.add(game.moves().size());
+                } else {
+                    invalid.increment();
+                }
+                consumer.accept(replayed);
+            }
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            batches.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: PgnPipeline <pgn> [threads]");
+            return;
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        Summary summary;
+        // PGN files are Latin-1
+        try (PgnPipeline pipeline = new PgnPipeline(threads);
+             Reader reader = new InputStreamReader(Files.newInputStream(Path.of(args[0])),
+                     StandardCharsets.ISO_8859_1)) {
+            summary = pipeline.run(reader, replayed -> {
+                if (!replayed.isValid()) {
+                    System.out.println(replayed.pgn().tag("White") + " - " + replayed.pgn().tag("Black") + ": "
+                            + replayed.error());
+                }
+            });
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games (%d invalid), %d moves in %.1f s: %.0f games/s%n", summary.games(),
+                summary.invalid(), summary.moves(), seconds, summary.games() / seconds);
+    }
+}
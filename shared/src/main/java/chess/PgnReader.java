@@ -0,0 +1,261 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * Reads the games of a PGN file one at a time, so that archives of any size can be processed without loading them
+ * into memory. Comments, variations, numeric annotation glyphs and escape lines are skipped.
+ * <p>
+ * The reader is lenient: a game ends at its termination marker, at the tags of the next game (any tag after a blank
+ * line or movetext), or at the end of the input, and the moves are returned as written without checking that they
+ * are legal (see {@link PgnGame#replay()}).
+ * Byte order marks are skipped, and tokens and tag values are cut off at {@link #MAX_LENGTH} characters, so that a
+ * corrupt file can't make the reader hold more than that in memory.
+ */
+public class PgnReader implements Closeable {
+    public static final int MAX_LENGTH = 1 << 12;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private static final int END = -1;
+    // Value of pushedBack when no character has been pushed back
+    private static final int NOTHING = -2;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder token = new StringBuilder();
+    private int position;
+    private int limit;
+    private int previous = '\n';
+    private int pushedBack = NOTHING;
+
+    public PgnReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return The next game, or null at the end of the input
+     * @throws IOException if reading fails
+     */
+    public PgnGame next() throws IOException {
+        LinkedHashMap<String, String> tags = new LinkedHashMap<>();
+        ArrayList<String> moves = new ArrayList<>();
+        boolean started = false;
+        // Whether a blank line or movetext has ended the tag section, so that a tag starts the next game
+        boolean tagsEnded = false;
+        // Whether the current line has only had whitespace so far
+        boolean blankLine = previous == '\n';
+        while (true) {
+            boolean lineStart = previous == '\n';
+            int c = read();
+            switch (c) {
+                case END:
+                    return started ? new PgnGame(tags, moves, null) : null;
+                case '\n':
+                    if (blankLine && !tags.isEmpty()) {
+                        tagsEnded = true;
+                    }
+                    blankLine = true;
+                    continue;
+                case ' ', '\t', '\r', BYTE_ORDER_MARK:
+                    continue;
+                case '.', ')', ']', '}':
+                    blankLine = false;
+                    continue;
+                case '[':
+                    if (started && tagsEnded) {
+                        // The tags of the next game, after a game with no termination marker
+                        unread(c);
+                        return new PgnGame(tags, moves, null);
+                    }
+                    readTag(tags);
+                    started = true;
+                    blankLine = previous == '\n';
+                    continue;
+                case '{':
+                    skipPast('}');
+                    tagsEnded = true;
+                    blankLine = false;
+                    continue;
+                case ';':
+                    skipPast('\n');
+                    tagsEnded = true;
+                    blankLine = true;
+                    continue;
+                case '(':
+                    skipVariation();
+                    tagsEnded = true;
+                    blankLine = false;
+                    continue;
+                case '$':
+                    readToken(c);
+                    tagsEnded = true;
+                    blankLine = false;
+                    continue;
+                case '%':
+                    if (lineStart) {
+                        skipPast('\n');
+                        blankLine = true;
+                        continue;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            started = true;
+            tagsEnded = true;
+            blankLine = false;
+            String move = readMove(c);
+            if (move == null) {
+                continue;
+            }
+            if (isResult(move)) {
+                return new PgnGame(tags, moves, move);
+            }
+            moves.add(move);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Read a movetext token, dropping a leading move number
+     *
+     * @return The token, or null if it was only a move number
+     */
+    private String readMove(int first) throws IOException {
+        readToken(first);
+        int start = 0;
+        while (start < token.length() && Character.isDigit(token.charAt(start))) {
+            start++;
+        }
+        if (start < token.length() && token.charAt(start) == '.') {
+            while (start < token.length() && token.charAt(start) == '.') {
+                start++;
+            }
+        } else {
+            // Not a move number, e.g. a result like 1-0
+            start = 0;
+        }
+        return start == token.length() ? null : token.substring(start);
+    }
+
+    private void readToken(int first) throws IOException {
+        token.setLength(0);
+        token.append((char) first);
+        while (true) {
+            int c = read();
+            if (c == END || Character.isWhitespace(c) || "{}()[];$".indexOf(c) >= 0) {
+                unread(c);
+                return;
+            }
+            if (token.length() < MAX_LENGTH) {
+                token.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Read a tag pair. A tag never spans lines, so a tag with a missing quote or bracket ends at the end of its line
+     * instead of swallowing the games after it.
+     */
+    private void readTag(LinkedHashMap<String, String> tags) throws IOException {
+        StringBuilder name = new StringBuilder();
+        int c = read();
+        while (c != END && c != '"' && c != ']' && c != '\n') {
+            if (!Character.isWhitespace(c) && name.length() < MAX_LENGTH) {
+                name.append((char) c);
+            }
+            c = read();
+        }
+        StringBuilder value = new StringBuilder();
+        if (c == '"') {
+            for (c = read(); c != END && c != '"' && c != '\n'; c = read()) {
+                if (c == '\\') {
+                    c = read();
+                    if (c == END || c == '\n') {
+                        break;
+                    }
+                }
+                if (value.length() < MAX_LENGTH) {
+                    value.append((char) c);
+                }
+            }
+            if (c == '"') {
+                skipLine(']');
+            }
+        }
+        tags.put(name.toString(), value.toString());
+    }
+
+    /**
+     * Skip past a character, or up to the end of the line if it isn't on this line
+     */
+    private void skipLine(char end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != END && c != end && c != '\n');
+    }
+
+    /**
+     * Skip a variation, including any variations and comments nested in it
+     */
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = read();
+            switch (c) {
+                case END -> depth = 0;
+                case '(' -> depth++;
+                case ')' -> depth--;
+                case '{' -> skipPast('}');
+                case ';' -> skipPast('\n');
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void skipPast(char end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != END && c != end);
+    }
+
+    private static boolean isResult(String token) {
+        return token.equals(PgnGame.WHITE_WINS) || token.equals(PgnGame.BLACK_WINS) || token.equals(PgnGame.DRAW)
+                || token.equals(PgnGame.UNKNOWN);
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushedBack != NOTHING) {
+            c = pushedBack;
+            pushedBack = NOTHING;
+        } else {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, BUFFER_SIZE);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return END;
+                }
+            }
+            c = buffer[position++];
+        }
+        previous = c;
+        return c;
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+}
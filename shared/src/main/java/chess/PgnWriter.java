@@ -0,0 +1,94 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Writes games in PGN export format, one at a time: the tags, a blank line, then the moves with move numbers,
+ * wrapped at 79 characters and ending with the result, and a blank line after each game. Games written this way can
+ * be read back with {@link PgnReader}.
+ */
+public class PgnWriter implements Closeable, Flushable {
+    private static final int LINE_LENGTH = 79;
+
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder(LINE_LENGTH + 1);
+
+    public PgnWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Write a game. Its moves are written as they are, without checking that they are legal.
+     *
+     * @throws IOException              if writing fails
+     * @throws IllegalArgumentException if the game's FEN tag is not valid
+     */
+    public void write(PgnGame game) throws IOException {
+        for (Map.Entry<String, String> tag : game.tags().entrySet()) {
+            writer.write('[');
+            writer.write(tag.getKey());
+            writer.write(" \"");
+            writer.write(escape(tag.getValue()));
+            writer.write("\"]\n");
+        }
+        if (!game.tags().isEmpty()) {
+            writer.write('\n');
+        }
+
+        int number = 1;
+        boolean white = true;
+        if (game.tag("FEN") != null) {
+            ChessGame start = game.startingPosition();
+            number = start.getFullmoveNumber();
+            white = start.getTeamTurn() == ChessGame.TeamColor.WHITE;
+        }
+        for (int i = 0; i < game.moves().size(); i++) {
+            if (white) {
+                append(number + ".");
+            } else if (i == 0) {
+                append(number + "...");
+            }
+            append(game.moves().get(i));
+            if (!white) {
+                number++;
+            }
+            white = !white;
+        }
+        String result = game.result() != null ? game.result() : game.tag("Result");
+        append(result != null ? result : PgnGame.UNKNOWN);
+        writer.append(line).append("\n\n");
+        line.setLength(0);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Add a token to the current line of movetext, starting a new line if it doesn't fit
+     */
+    private void append(String token) throws IOException {
+        if (!line.isEmpty() && line.length() + 1 + token.length() > LINE_LENGTH) {
+            writer.append(line).append('\n');
+            line.setLength(0);
+        }
+        if (!line.isEmpty()) {
+            line.append(' ');
+        }
+        line.append(token);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
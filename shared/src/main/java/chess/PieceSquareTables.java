@@ -0,0 +1,165 @@
+package chess;
+
+/**
+ * Material and piece-square values for a tapered evaluation, which blends a middlegame score and an endgame score by
+ * how much material is left (the phase). A position's scores are the sums of the values of each piece on its square,
+ * so they can be updated incrementally as pieces move.
+ * <p>
+ * Each value packs both scores into one int, the middlegame score in the low 16 bits and the endgame score in the
+ * high 16 bits, so that adding and subtracting packed values adds and subtracts both scores at once. Values are in
+ * centipawns from white's point of view, so black pieces have negative values.
+ */
+class PieceSquareTables {
+    /**
+     * Phase of a position with all the minor and major pieces on the board
+     */
+    static final int MAX_PHASE = 24;
+
+    // By type ordinal (KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN)
+    private static final int[] MIDDLEGAME_VALUES = {0, 900, 330, 320, 500, 100};
+    private static final int[] ENDGAME_VALUES = {0, 940, 340, 300, 520, 120};
+    private static final int[] PHASES = {0, 4, 1, 1, 2, 0};
+
+    // Tables are laid out as seen from white's side of the board, so the first row is rank 8
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20,
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20,
+    };
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20,
+    };
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50,
+    };
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0,
+    };
+    private static final int[] PAWN_MIDDLEGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+    };
+    // In the endgame, only how far a pawn has advanced matters
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0,
+    };
+
+    private static final int[][] MIDDLEGAME_TABLES = {KING_MIDDLEGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_MIDDLEGAME};
+    private static final int[][] ENDGAME_TABLES = {KING_ENDGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_ENDGAME};
+
+    private static final int[] VALUES = new int[Bitboard.PIECE_COUNT * 64];
+
+    static {
+        for (int pieceIndex = 0; pieceIndex < Bitboard.PIECE_COUNT; pieceIndex++) {
+            int type = pieceIndex % 6;
+            boolean white = Bitboard.color(pieceIndex) == ChessGame.TeamColor.WHITE;
+            for (int square = 0; square < 64; square++) {
+                // Flip the rank for white, whose first rank is the last row of the table
+                int entry = white ? square ^ 56 : square;
+                int middlegame = MIDDLEGAME_VALUES[type] + MIDDLEGAME_TABLES[type][entry];
+                int endgame = ENDGAME_VALUES[type] + ENDGAME_TABLES[type][entry];
+                VALUES[pieceIndex << 6 | square] = white ? pack(middlegame, endgame) : -pack(middlegame, endgame);
+            }
+        }
+    }
+
+    /**
+     * @return Packed value of a piece on a square
+     */
+    static int value(int pieceIndex, int square) {
+        return VALUES[pieceIndex << 6 | square];
+    }
+
+    /**
+     * @return How much a piece counts toward the phase
+     */
+    static int phase(int pieceIndex) {
+        return PHASES[pieceIndex % 6];
+    }
+
+    static int pack(int middlegame, int endgame) {
+        return (endgame << 16) + middlegame;
+    }
+
+    /**
+     * @return Middlegame score of a packed value
+     */
+    static int middlegame(int value) {
+        return (short) value;
+    }
+
+    /**
+     * @return Endgame score of a packed value
+     */
+    static int endgame(int value) {
+        // Undo the borrow from the high half when the middlegame score is negative
+        return (short) ((value + 0x8000) >> 16);
+    }
+
+    /**
+     * @return Blend of the middlegame and endgame scores of a packed value, weighted by the phase
+     */
+    static int taper(int value, int phase) {
+        int clamped = Math.min(phase, MAX_PHASE);
+        return (middlegame(value) * clamped + endgame(value) * (MAX_PHASE - clamped)) / MAX_PHASE;
+    }
+}
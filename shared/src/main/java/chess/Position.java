@@ -0,0 +1,252 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Immutable snapshot of a chess game: the pieces, the side to move, castling rights, en passant square, move
+ * counters and the moves made so far. Positions also keep what a game needs to unmake those moves and detect
+ * repetitions, so a game made from one with {@link #toGame()} can do both.
+ * <p>
+ * Deriving the position after a move copies the board (a fixed few hundred bytes) and shares the rest of the
+ * history with this position, so it costs the same however long the game is. Since nothing about a position can
+ * change, positions can be handed to other threads (spectators, analysis, caches) without copying or locking.
+ */
+public final class Position {
+    private static final Position START = of(new ChessGame());
+
+    // Never modified after construction, and never handed out
+    private final ChessBoard board;
+    private final ChessGame.TeamColor teamTurn;
+    private final int castlingRights;
+    private final int enPassantSquare;
+    private final int halfmoveClock;
+    private final int fullmoveNumber;
+    private final MoveHistory history;
+    // Undo information of the moves that can be unmade, most recent first, or null if there are none
+    private final Undo undo;
+    private final int repetitions;
+    private final long key;
+
+    /**
+     * Persistent stack of {@link MoveUndo} entries, each with the key of the position before its move
+     */
+    private record Undo(long entry, long key, Undo previous, int size) {
+    }
+
+    private Position(ChessBoard board, ChessGame.TeamColor teamTurn, int castlingRights, int enPassantSquare,
+                     int halfmoveClock, int fullmoveNumber, MoveHistory history, Undo undo) {
+        this.board = board;
+        this.teamTurn = teamTurn;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        this.history = history;
+        this.undo = undo;
+        this.key = ChessGame.positionKey(board.getBitboard(), teamTurn, castlingRights, enPassantSquare);
+        this.repetitions = countRepetitions();
+    }
+
+    /**
+     * Same search as in {@link ChessGame}: back to the last capture or pawn move, with the same team to move, and
+     * stopping at the nearest match
+     */
+    private int countRepetitions() {
+        int depth = 1;
+        int oldest = undo == null ? 0 : Math.min(halfmoveClock, undo.size);
+        for (Undo entry = undo; entry != null && depth <= oldest; entry = entry.previous, depth++) {
+            if (depth >= ChessGame.FIRST_REPETITION_PLIES && depth % 2 == 0 && entry.key == key) {
+                return MoveUndo.repetitions(entry.entry) + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return The starting position of a game
+     */
+    public static Position start() {
+        return START;
+    }
+
+    /**
+     * Take a snapshot of a game. This copies the game's history once; positions derived from the snapshot share it.
+     *
+     * @return Position with the game's current state
+     */
+    public static Position of(ChessGame game) {
+        Undo undo = null;
+        for (int ply = 0; ply < game.undoCount(); ply++) {
+            undo = new Undo(game.undoEntry(ply), game.keyBefore(ply), undo, ply + 1);
+        }
+        return new Position(new ChessBoard(game.getBoard()), game.getTeamTurn(), game.getCastlingRights(),
+                game.getEnPassantSquare(), game.getHalfmoveClock(), game.getFullmoveNumber(),
+                MoveHistory.of(game.getHistory()), undo);
+    }
+
+    /**
+     * WARNING: Performs no checks for move validity.
+     *
+     * @param move Move to apply
+     * @return Position after the given move
+     */
+    public Position after(ChessMove move) {
+        return after(PackedMove.of(move));
+    }
+
+    /**
+     * WARNING: Performs no checks for move validity.
+     *
+     * @param move Packed move (see {@link PackedMove}) to apply
+     * @return Position after the given move
+     */
+    public Position after(int move) {
+        Bitboard bitboard = board.getBitboard();
+        int start = PackedMove.from(move);
+        int end = PackedMove.to(move);
+        int piece = bitboard.pieceAt(start);
+        boolean pawnMove = piece != Bitboard.NO_PIECE && Bitboard.type(piece) == ChessPiece.PieceType.PAWN;
+        boolean capture = bitboard.pieceAt(end) != Bitboard.NO_PIECE
+                || (pawnMove && Bitboard.column(start) != Bitboard.column(end));
+
+        ChessBoard next = new ChessBoard(board);
+        int boardUndo = next.makeMove(move);
+        long entry = MoveUndo.pack(boardUndo, castlingRights, enPassantSquare, halfmoveClock, repetitions);
+        return new Position(next,
+                teamTurn.opponent(),
+                ChessGame.castlingRightsAfter(castlingRights, start, end),
+                pawnMove && Math.abs(end - start) == 16 ? (start + end) / 2 : Bitboard.NO_SQUARE,
+                pawnMove || capture ? 0 : halfmoveClock + 1,
+                teamTurn == ChessGame.TeamColor.BLACK ? fullmoveNumber + 1 : fullmoveNumber,
+                history.plus(PackedMove.toChessMove(move)),
+                new Undo(entry, key, undo, undo == null ? 1 : undo.size + 1));
+    }
+
+    /**
+     * @return A new, mutable game starting from this position, which can unmake the moves that led to it
+     */
+    public ChessGame toGame() {
+        int count = undo == null ? 0 : undo.size;
+        long[] undoStack = new long[Math.max(count, 16)];
+        long[] keyStack = new long[undoStack.length];
+        for (Undo entry = undo; entry != null; entry = entry.previous) {
+            undoStack[entry.size - 1] = entry.entry;
+            keyStack[entry.size - 1] = entry.key;
+        }
+        return new ChessGame(new ChessBoard(board), teamTurn, castlingRights, enPassantSquare, halfmoveClock,
+                fullmoveNumber, history.toList(), undoStack, keyStack, count, repetitions);
+    }
+
+    /**
+     * @return Earlier occurrences of this position, as in {@link ChessGame#getRepetitions()}
+     */
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    /**
+     * @return All legal moves for the team whose turn it is
+     */
+    public Collection<ChessMove> legalMoves() {
+        int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+        int count = generate(moves);
+        ArrayList<ChessMove> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(PackedMove.toChessMove(moves[i]));
+        }
+        return list;
+    }
+
+    /**
+     * Generate all legal moves for the team whose turn it is into a buffer, without allocating
+     *
+     * @param moves Buffer to fill with packed moves, of at least LegalMoveGenerator.MAX_MOVES entries
+     * @return Number of moves generated
+     */
+    public int generate(int[] moves) {
+        return LegalMoveGenerator.generate(board.getBitboard(), teamTurn, castlingRights, enPassantSquare, -1L,
+                moves, moves.length);
+    }
+
+    /**
+     * @return True if the team whose turn it is is in check
+     */
+    public boolean isInCheck() {
+        int king = board.getBitboard().kingSquare(teamTurn);
+        return king != Bitboard.NO_SQUARE && board.isSquareAttacked(king, teamTurn.opponent());
+    }
+
+    /**
+     * @return Piece at the given position, or null if there is none
+     */
+    public ChessPiece getPiece(ChessPosition position) {
+        return board.getPiece(position);
+    }
+
+    /**
+     * @return A copy of the board, which can be modified without affecting this position
+     */
+    public ChessBoard getBoard() {
+        return new ChessBoard(board);
+    }
+
+    public ChessGame.TeamColor getTeamTurn() {
+        return teamTurn;
+    }
+
+    /**
+     * @return Castling rights, as in {@link ChessGame#getCastlingRights()}
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return Square a pawn could move to in order to capture en passant, or Bitboard.NO_SQUARE if none
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * @return Moves made to reach this position
+     */
+    public MoveHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * @return Zobrist key of the position, as in {@link ChessGame#positionKey()}
+     */
+    public long positionKey() {
+        return key;
+    }
+
+    /**
+     * Positions are equal if they have the same pieces, side to move, castling rights and en passant capture (see
+     * {@link ChessGame#positionKey()}), regardless of how they were reached
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Position that = (Position) o;
+        return key == that.key && teamTurn == that.teamTurn && castlingRights == that.castlingRights
+                && board.equals(that.board);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key);
+    }
+}
@@ -0,0 +1,163 @@
+package chess;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+
+/**
+ * Compact binary encoding of a game's position (not its history), about 30 bytes for a full board:
+ * <ul>
+ *     <li>1 byte format version</li>
+ *     <li>8 bytes occupied squares, as a big-endian bitboard (see {@link Bitboard})</li>
+ *     <li>4 bits per occupied square, in square order, holding the piece index</li>
+ *     <li>2 bytes state: bit 0 set if black is to move, bits 1-4 castling rights, bit 5 set if there is an en
+ *     passant square and bits 6-8 its file (its rank follows from the side to move)</li>
+ *     <li>the halfmove clock and fullmove number, each as an unsigned LEB128 varint</li>
+ * </ul>
+ */
+public class PositionCodec {
+    public static final int VERSION = 1;
+
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int CASTLING_SHIFT = 1;
+    private static final int EN_PASSANT = 1 << 5;
+    private static final int EN_PASSANT_FILE_SHIFT = 6;
+
+    /**
+     * @return Binary encoding of the game's current position
+     */
+    public static byte[] encode(ChessGame game) {
+        Bitboard bitboard = game.getBoard().getBitboard();
+        long occupied = bitboard.occupied();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+        out.write(VERSION);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (occupied >>> shift));
+        }
+
+        int pending = -1;
+        for (long squares = occupied; squares != 0; squares &= squares - 1) {
+            int piece = bitboard.pieceAt(Long.numberOfTrailingZeros(squares));
+            if (pending < 0) {
+                pending = piece << 4;
+            } else {
+                out.write(pending | piece);
+                pending = -1;
+            }
+        }
+        if (pending >= 0) {
+            out.write(pending);
+        }
+
+        int state = game.getCastlingRights() << CASTLING_SHIFT;
+        if (game.getTeamTurn() == ChessGame.TeamColor.BLACK) {
+            state |= BLACK_TO_MOVE;
+        }
+        if (game.getEnPassantSquare() != Bitboard.NO_SQUARE) {
+            state |= EN_PASSANT | (Bitboard.column(game.getEnPassantSquare()) - 1) << EN_PASSANT_FILE_SHIFT;
+        }
+        out.write(state >>> 8);
+        out.write(state);
+        writeVarint(out, game.getHalfmoveClock());
+        writeVarint(out, game.getFullmoveNumber());
+        return out.toByteArray();
+    }
+
+    /**
+     * @return Game in the encoded position, with no history
+     * @throws IllegalArgumentException if the bytes are not a valid encoding
+     */
+    public static ChessGame decode(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        int version = in.read();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported position encoding version: " + version);
+        }
+        long occupied = 0;
+        for (int i = 0; i < 8; i++) {
+            occupied = occupied << 8 | in.read();
+        }
+
+        ChessBoard board = new ChessBoard();
+        int index = 0;
+        int current = 0;
+        for (long squares = occupied; squares != 0; squares &= squares - 1) {
+            if (index++ % 2 == 0) {
+                current = in.read();
+            }
+            int piece = index % 2 == 1 ? current >>> 4 : current & 0xF;
+            if (piece >= Bitboard.PIECE_COUNT) {
+                throw new IllegalArgumentException("Invalid piece index: " + piece);
+            }
+            board.getBitboard().put(Long.numberOfTrailingZeros(squares), piece);
+        }
+
+        int state = in.read() << 8 | in.read();
+        ChessGame.TeamColor turn = (state & BLACK_TO_MOVE) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        int castlingRights = state >>> CASTLING_SHIFT & ChessGame.ALL_CASTLING_RIGHTS;
+        int enPassant = Bitboard.NO_SQUARE;
+        if ((state & EN_PASSANT) != 0) {
+            int row = turn == ChessGame.TeamColor.WHITE ? 6 : 3;
+            enPassant = Bitboard.square(row, (state >>> EN_PASSANT_FILE_SHIFT & 7) + 1);
+            Fen.checkEnPassant(enPassant, board, turn);
+        }
+        int halfmoveClock = in.readVarint();
+        int fullmoveNumber = in.readVarint();
+        if (fullmoveNumber < 1) {
+            throw new IllegalArgumentException("Invalid fullmove number: " + fullmoveNumber);
+        }
+        if (!in.isAtEnd()) {
+            throw new IllegalArgumentException("Unexpected bytes after position");
+        }
+        return new ChessGame(board, turn, castlingRights, enPassant, halfmoveClock, fullmoveNumber, new ArrayList<>());
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Reads bytes in order, failing cleanly on truncated input
+     */
+    private static class Reader {
+        private final byte[] bytes;
+        private int offset = 0;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int read() {
+            if (offset >= bytes.length) {
+                throw new IllegalArgumentException("Truncated position encoding");
+            }
+            return bytes[offset++] & 0xFF;
+        }
+
+        /**
+         * @return A non-negative int, which takes at most 5 bytes
+         */
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = read();
+                // The last byte holds bits 28 to 30, so anything more would overflow or be negative
+                if (shift == 28 && b > 0x07) {
+                    break;
+                }
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Invalid varint in position encoding");
+        }
+
+        boolean isAtEnd() {
+            return offset == bytes.length;
+        }
+    }
+}
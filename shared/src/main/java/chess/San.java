@@ -0,0 +1,247 @@
+package chess;
+
+/**
+ * Parses and formats moves in Standard Algebraic Notation, e.g. {@code e4}, {@code Nbd7}, {@code exd6}, {@code O-O}
+ * or {@code e8=Q+}. When parsing, check and mate markers and annotations like {@code !?} are accepted and ignored.
+ */
+public class San {
+    private static final String PIECE_LETTERS = "KQBNR";
+
+    /**
+     * Parse a move in the game's current position
+     *
+     * @return The move
+     * @throws IllegalArgumentException if the move is malformed, illegal or ambiguous
+     */
+    public static ChessMove parse(ChessGame game, String san) {
+        return PackedMove.toChessMove(parsePacked(game, san));
+    }
+
+    /**
+     * Parse a move in the game's current position
+     *
+     * @return The move, packed with the flags the move generator gives it (see {@link PackedMove})
+     * @throws IllegalArgumentException if the move is malformed, illegal or ambiguous
+     */
+    public static int parsePacked(ChessGame game, String san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+        int count = LegalMoveGenerator.generate(game, moves);
+        Bitboard bitboard = game.getBoard().getBitboard();
+
+        if (isCastling(san, end)) {
+            boolean queenside = end == 5;
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                if (PackedMove.is(move, PackedMove.CASTLING)
+                        && (PackedMove.to(move) < PackedMove.from(move)) == queenside) {
+                    return move;
+                }
+            }
+            throw new IllegalArgumentException("Castling is not legal: " + san);
+        }
+
+        int start = 0;
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if (end > 0 && PIECE_LETTERS.indexOf(san.charAt(0)) >= 0) {
+            type = pieceType(san.charAt(0));
+            start = 1;
+        }
+        ChessPiece.PieceType promotion = null;
+        if (end >= 2 && PIECE_LETTERS.indexOf(san.charAt(end - 1)) > 0) {
+            promotion = pieceType(san.charAt(end - 1));
+            end -= san.charAt(end - 2) == '=' ? 2 : 1;
+        }
+        if (end - start < 2 || !isFile(san.charAt(end - 2)) || !isRank(san.charAt(end - 1))) {
+            throw new IllegalArgumentException("Invalid move: " + san);
+        }
+        int to = Bitboard.square(san.charAt(end - 1) - '0', san.charAt(end - 2) - 'a' + 1);
+
+        // Whatever is between the piece letter and the destination narrows down the start square
+        int fromColumn = 0;
+        int fromRow = 0;
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (isFile(c)) {
+                fromColumn = c - 'a' + 1;
+            } else if (isRank(c)) {
+                fromRow = c - '0';
+            } else if (c != 'x' && c != ':') {
+                throw new IllegalArgumentException("Invalid move: " + san);
+            }
+        }
+
+        int found = PackedMove.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = PackedMove.from(move);
+            if (PackedMove.to(move) != to || PackedMove.promotion(move) != promotion
+                    || Bitboard.type(bitboard.pieceAt(from)) != type
+                    || (fromColumn != 0 && Bitboard.column(from) != fromColumn)
+                    || (fromRow != 0 && Bitboard.row(from) != fromRow)) {
+                continue;
+            }
+            if (found != PackedMove.NONE) {
+                throw new IllegalArgumentException("Ambiguous move: " + san);
+            }
+            found = move;
+        }
+        if (found == PackedMove.NONE) {
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+        return found;
+    }
+
+    /**
+     * Format a move in the game's current position, with a check or mate marker if it gives one
+     *
+     * @return The move in SAN
+     * @throws IllegalArgumentException if the move is not legal
+     */
+    public static String format(ChessGame game, ChessMove move) {
+        return format(game, PackedMove.of(move));
+    }
+
+    /**
+     * Format a packed move (see {@link PackedMove}) in the game's current position, with a check or mate marker if it
+     * gives one. The game is left as it was.
+     *
+     * @return The move in SAN
+     * @throws IllegalArgumentException if the move is not legal
+     */
+    public static String format(ChessGame game, int move) {
+        int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+        int count = LegalMoveGenerator.generate(game, moves);
+        int legal = PackedMove.NONE;
+        for (int i = 0; i < count && legal == PackedMove.NONE; i++) {
+            if (PackedMove.withoutFlags(moves[i]) == PackedMove.withoutFlags(move)) {
+                legal = moves[i];
+            }
+        }
+        if (legal == PackedMove.NONE) {
+            throw new IllegalArgumentException("Illegal move: " + PackedMove.toChessMove(move).toCoordinateNotation());
+        }
+
+        StringBuilder san = new StringBuilder(8);
+        int from = PackedMove.from(legal);
+        int to = PackedMove.to(legal);
+        Bitboard bitboard = game.getBoard().getBitboard();
+        ChessPiece.PieceType type = Bitboard.type(bitboard.pieceAt(from));
+        boolean capture = PackedMove.is(legal, PackedMove.CAPTURE) || PackedMove.is(legal, PackedMove.EN_PASSANT);
+        if (PackedMove.is(legal, PackedMove.CASTLING)) {
+            san.append(to < from ? "O-O-O" : "O-O");
+        } else if (type == ChessPiece.PieceType.PAWN) {
+            if (capture) {
+                san.append(file(from)).append('x');
+            }
+            appendSquare(san, to);
+            if (PackedMove.promotion(legal) != null) {
+                san.append('=').append(letter(PackedMove.promotion(legal)));
+            }
+        } else {
+            san.append(letter(type));
+            appendDisambiguation(san, bitboard, moves, count, legal);
+            if (capture) {
+                san.append('x');
+            }
+            appendSquare(san, to);
+        }
+
+        game.makeMoveUnchecked(legal);
+        if (game.isInCheck(game.getTeamTurn())) {
+            san.append(LegalMoveGenerator.hasLegalMoves(game, game.getTeamTurn()) ? '+' : '#');
+        }
+        game.unmakeMove();
+        return san.toString();
+    }
+
+    /**
+     * Add the start file, rank or square of a piece move if another piece of the same type can move to the same
+     * square, preferring the file and then the rank
+     */
+    private static void appendDisambiguation(StringBuilder san, Bitboard bitboard, int[] moves, int count, int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int piece = bitboard.pieceAt(from);
+        boolean ambiguous = false;
+        boolean sameColumn = false;
+        boolean sameRow = false;
+        for (int i = 0; i < count; i++) {
+            int other = PackedMove.from(moves[i]);
+            if (PackedMove.to(moves[i]) != to || other == from || bitboard.pieceAt(other) != piece) {
+                continue;
+            }
+            ambiguous = true;
+            sameColumn |= Bitboard.column(other) == Bitboard.column(from);
+            sameRow |= Bitboard.row(other) == Bitboard.row(from);
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameColumn) {
+            san.append(file(from));
+        } else if (!sameRow) {
+            san.append(rank(from));
+        } else {
+            appendSquare(san, from);
+        }
+    }
+
+    private static void appendSquare(StringBuilder san, int square) {
+        san.append(file(square)).append(rank(square));
+    }
+
+    private static char file(int square) {
+        return (char) ('a' + Bitboard.column(square) - 1);
+    }
+
+    private static char rank(int square) {
+        return (char) ('0' + Bitboard.row(square));
+    }
+
+    private static char letter(ChessPiece.PieceType type) {
+        return switch (type) {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case ROOK -> 'R';
+            case PAWN -> throw new IllegalArgumentException("Pawns have no letter");
+        };
+    }
+
+    private static boolean isCastling(String san, int end) {
+        if (end != 3 && end != 5) {
+            return false;
+        }
+        // O-O or O-O-O, also written with zeros
+        for (int i = 0; i < end; i++) {
+            char c = san.charAt(i);
+            if (i % 2 == 1 ? c != '-' : c != 'O' && c != '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ChessPiece.PieceType pieceType(char letter) {
+        return switch (letter) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            default -> ChessPiece.PieceType.ROOK;
+        };
+    }
+
+    private static boolean isFile(char c) {
+        return 'a' <= c && c <= 'h';
+    }
+
+    private static boolean isRank(char c) {
+        return '1' <= c && c <= '8';
+    }
+}
@@ -0,0 +1,49 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for Zobrist hashing. A position's key is the XOR of the keys for each piece on its square, the
+ * side to move, the castling rights and the en passant file, so it can be updated incrementally as pieces move.
+ * <p>
+ * The keys come from a fixed seed, so a position has the same key in every run (and on both client and server).
+ */
+class Zobrist {
+    private static final long SEED = 0x2400C4E55L;
+
+    private static final long[] PIECES = new long[Bitboard.PIECE_COUNT * 64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < PIECES.length; i++) {
+            PIECES[i] = random.nextLong();
+        }
+        // No castling rights hashes to 0, so that a bare board key only depends on the pieces
+        for (int i = 1; i < CASTLING.length; i++) {
+            CASTLING[i] = random.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT.length; i++) {
+            EN_PASSANT[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    static long piece(int pieceIndex, int square) {
+        return PIECES[pieceIndex << 6 | square];
+    }
+
+    static long castling(int castlingRights) {
+        return CASTLING[castlingRights];
+    }
+
+    static long enPassant(int square) {
+        return EN_PASSANT[square & 7];
+    }
+
+    static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+}
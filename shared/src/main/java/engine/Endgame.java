@@ -0,0 +1,148 @@
+package engine;
+
+import chess.Bitboard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Material of an endgame that has a {@link Tablebase}: the strong side's king and pieces against a lone king.
+ * <p>
+ * Positions are indexed with the strong side as white. The side to move comes first, then the white king, the black
+ * king and the white pieces in the order given, 6 bits per square. Symmetry keeps the white king on files a-d, and
+ * without pawns also on the a1-d1-d4 triangle, so each table holds a half or an eighth of all placements.
+ */
+public enum Endgame {
+    KQK(ChessPiece.PieceType.QUEEN),
+    KRK(ChessPiece.PieceType.ROOK),
+    KPK(ChessPiece.PieceType.PAWN),
+    KBNK(ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT);
+
+    private static final Endgame[] ENDGAMES = values();
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+    // Squares the white king is kept on, by king index
+    private static final int[] TRIANGLE = {0, 1, 2, 3, 9, 10, 11, 18, 19, 27};
+    private static final int[] HALF = new int[32];
+    private static final int[] TRIANGLE_INDEX = new int[64];
+    private static final int[] HALF_INDEX = new int[64];
+
+    static {
+        for (int i = 0; i < TRIANGLE.length; i++) {
+            TRIANGLE_INDEX[TRIANGLE[i]] = i;
+        }
+        for (int i = 0; i < HALF.length; i++) {
+            HALF[i] = (i >> 2) * 8 + (i & 3);
+            HALF_INDEX[HALF[i]] = i;
+        }
+    }
+
+    // One of each type, besides the king
+    private final ChessPiece.PieceType[] pieces;
+    private final boolean pawns;
+
+    Endgame(ChessPiece.PieceType... pieces) {
+        this.pieces = pieces;
+        pawns = pieces[0] == ChessPiece.PieceType.PAWN;
+    }
+
+    /**
+     * @return Number of pieces on the board, including both kings
+     */
+    public int pieceCount() {
+        return pieces.length + 2;
+    }
+
+    /**
+     * @return Number of entries in the table, including illegal positions
+     */
+    public int size() {
+        return 2 * kingSquares().length << 6 * (pieces.length + 1);
+    }
+
+    /**
+     * @return Type of the strong side's i-th piece besides its king
+     */
+    ChessPiece.PieceType piece(int i) {
+        return pieces[i];
+    }
+
+    /**
+     * @return The endgame with the board's material, or null if it has no table
+     */
+    static Endgame of(Bitboard bitboard) {
+        int count = Long.bitCount(bitboard.occupied());
+        for (Endgame endgame : ENDGAMES) {
+            if (endgame.pieceCount() == count && endgame.strongSide(bitboard) != null) {
+                return endgame;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The side that has this endgame's pieces against a lone king, or null if neither has
+     */
+    ChessGame.TeamColor strongSide(Bitboard bitboard) {
+        for (ChessGame.TeamColor color : COLORS) {
+            if (Long.bitCount(bitboard.color(color.opponent())) != 1) {
+                continue;
+            }
+            boolean matches = Long.bitCount(bitboard.color(color)) == pieces.length + 1;
+            for (int i = 0; i < pieces.length && matches; i++) {
+                matches = Long.bitCount(bitboard.pieces(color, pieces[i])) == 1;
+            }
+            if (matches) {
+                return color;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Index of a position, after moving it onto the part of the board the table covers
+     *
+     * @param whiteToMove Whether the strong side is to move
+     * @param squares     The white king, the black king and the white pieces in order
+     */
+    int index(boolean whiteToMove, int[] squares) {
+        int king = squares[0];
+        int flip = (king & 7) > 3 ? 7 : 0;
+        boolean transpose = false;
+        if (!pawns) {
+            if (king >> 3 > 3) {
+                flip |= 56;
+            }
+            int flipped = king ^ flip;
+            transpose = flipped >> 3 > (flipped & 7);
+        }
+        int[] kingIndex = pawns ? HALF_INDEX : TRIANGLE_INDEX;
+        int index = (whiteToMove ? 0 : kingSquares().length) + kingIndex[transform(king, flip, transpose)];
+        for (int i = 1; i < pieces.length + 2; i++) {
+            index = index << 6 | transform(squares[i], flip, transpose);
+        }
+        return index;
+    }
+
+    /**
+     * Fill in the squares of the position at an index, in the order {@link #index} takes them
+     *
+     * @return Whether the strong side is to move
+     */
+    boolean decode(int index, int[] squares) {
+        for (int i = pieces.length + 1; i > 0; i--) {
+            squares[i] = index & 63;
+            index >>>= 6;
+        }
+        int[] kingSquares = kingSquares();
+        squares[0] = kingSquares[index % kingSquares.length];
+        return index < kingSquares.length;
+    }
+
+    private int[] kingSquares() {
+        return pawns ? HALF : TRIANGLE;
+    }
+
+    private static int transform(int square, int flip, boolean transpose) {
+        square ^= flip;
+        return transpose ? (square & 7) << 3 | square >> 3 : square;
+    }
+}
@@ -0,0 +1,203 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.PackedMove;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chess engine that searches for the best move with negamax alpha-beta and iterative deepening, followed by a
+ * quiescence search of captures at the leaves. Moves are generated and made as packed ints (see {@link PackedMove})
+ * into buffers that are reused, so the search does not allocate.
+ * <p>
+ * Results are cached in a {@link TranspositionTable}, which is kept between searches and can be shared with other
+ * engines. An engine runs one search at a time, but can be reused for any number of searches. With a
+ * {@link Tablebase}, positions it covers are scored exactly instead of searched.
+ * <p>
+ * With more than one thread, the engine runs a Lazy SMP search: helper threads in a dedicated ForkJoinPool search the
+ * same position at staggered depths while the calling thread runs the main search, and the helpers speed it up by
+ * filling the shared transposition table. A single-threaded search is deterministic; a parallel one is not. Close
+ * a multi-threaded engine once done with it to stop the pool's threads.
+ */
+public class Engine implements AutoCloseable {
+    public static final int MAX_DEPTH = 64;
+    public static final int MAX_PLY = 128;
+    public static final int MATE = 32000;
+
+    private final TranspositionTable table;
+    private final int threads;
+    private final Searcher main;
+    private final Searcher[] helpers;
+    private final ForkJoinPool pool;
+
+    private final LongAdder helperNodes = new LongAdder();
+    private volatile Tablebase tablebase;
+    private volatile boolean finished;
+    private volatile boolean stopRequested;
+
+    public Engine() {
+        this(new TranspositionTable());
+    }
+
+    /**
+     * @param table Transposition table to use, which may be shared with other engines
+     */
+    public Engine(TranspositionTable table) {
+        this(table, 1);
+    }
+
+    /**
+     * @param table   Transposition table to use, which may be shared with other engines
+     * @param threads Number of threads to search with, including the calling thread
+     */
+    public Engine(TranspositionTable table, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("An engine needs at least one thread");
+        }
+        this.table = table;
+        this.threads = threads;
+        main = new Searcher(this, table, true);
+        helpers = new Searcher[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Searcher(this, table, false);
+        }
+        pool = threads > 1 ? new ForkJoinPool(threads - 1) : null;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public Tablebase getTablebase() {
+        return tablebase;
+    }
+
+    /**
+     * Use a tablebase for exact scores of the endgames it covers in later searches
+     *
+     * @param tablebase The tablebase, or null to search without one
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Forget everything learned in earlier searches, e.g. before analyzing an unrelated game
+     */
+    public void newGame() {
+        table.clear();
+    }
+
+    /**
+     * Search for the best move in the game's current position. The game itself is not changed.
+     *
+     * @param game   Game to search
+     * @param limits When to stop searching
+     * @return Result of the deepest iteration that completed, which is always at least depth 1
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        long start = System.nanoTime();
+        long deadline = limits.timeMillis() == 0 ? 0 : start + limits.timeMillis() * 1_000_000;
+        finished = false;
+        stopRequested = false;
+        helperNodes.reset();
+        table.newSearch();
+
+        main.start(game, limits.nodes(), deadline);
+        List<ForkJoinTask<Long>> tasks = new ArrayList<>(helpers.length);
+        for (int i = 0; i < helpers.length; i++) {
+            Searcher helper = helpers[i];
+            // Half of the helpers start one ply deeper, so that the threads spread out over different depths
+            int firstDepth = 1 + (i + 1) % 2;
+            helper.start(game, 0, 0);
+            tasks.add(pool.submit(() -> helper.help(firstDepth)));
+        }
+
+        SearchResult result = null;
+        try {
+            for (int depth = 1; depth <= limits.maxDepth(); depth++) {
+                int score = main.iterate(depth);
+                if (main.isStopped()) {
+                    break;
+                }
+                result = result(score, depth, start);
+                if (result.bestMove() == null || (result.isMate() && Math.abs(result.mateIn()) * 2 <= depth)) {
+                    break;
+                }
+                // The next iteration takes several times as long as this one, so don't start what can't finish
+                if (deadline != 0 && System.nanoTime() - start > (deadline - start) / 2) {
+                    break;
+                }
+            }
+        } finally {
+            finished = true;
+            tasks.forEach(ForkJoinTask::join);
+            main.finish();
+            for (Searcher helper : helpers) {
+                helper.finish();
+            }
+        }
+        // Count the nodes of the iteration that didn't finish, and those the helpers searched after the main search
+        long timeMillis = (System.nanoTime() - start) / 1_000_000;
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), main.nodes() + helperNodes.sum(),
+                timeMillis, result.principalVariation());
+    }
+
+    /**
+     * Stop the current search as soon as possible. The search still returns the result of its last complete
+     * iteration.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Shut down the helper threads, if any. The engine can't search with more than one thread afterwards.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    /**
+     * @return True once the main search is done, which tells the helpers to stop
+     */
+    boolean isFinished() {
+        return finished;
+    }
+
+    void addHelperNodes(long nodes) {
+        helperNodes.add(nodes);
+    }
+
+    long helperNodes() {
+        return helperNodes.sum();
+    }
+
+    private SearchResult result(int score, int depth, long start) {
+        int[] line = main.principalVariation();
+        List<ChessMove> moves = new ArrayList<>(line.length);
+        for (int move : line) {
+            moves.add(PackedMove.toChessMove(move));
+        }
+        ChessMove bestMove = moves.isEmpty() ? null : moves.getFirst();
+        long timeMillis = (System.nanoTime() - start) / 1_000_000;
+        return new SearchResult(bestMove, score, depth, main.nodes() + helperNodes.sum(), timeMillis,
+                List.copyOf(moves));
+    }
+}
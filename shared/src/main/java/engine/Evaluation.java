@@ -0,0 +1,22 @@
+package engine;
+
+import chess.Bitboard;
+import chess.ChessGame;
+
+/**
+ * Static evaluation of a position: material and piece-square tables, tapered between middlegame and endgame values by
+ * the material left on the board. The board keeps the score up to date as pieces move (see {@link Bitboard#score()}),
+ * so evaluating a position is O(1).
+ */
+public class Evaluation {
+    // Centipawn value of each piece type for move ordering, by ordinal (KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN)
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    /**
+     * @return Score in centipawns from the point of view of the side to move
+     */
+    public static int evaluate(ChessGame game) {
+        int score = game.getBoard().getBitboard().score();
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
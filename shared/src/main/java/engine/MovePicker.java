@@ -0,0 +1,244 @@
+package engine;
+
+import chess.Bitboard;
+import chess.ChessPiece;
+import chess.LegalMoveGenerator;
+import chess.PackedMove;
+
+/**
+ * Hands out the moves of one node in the order most likely to cause an early cutoff, in stages: the hash move, then
+ * captures and promotions that don't lose material (by most valuable victim, then least valuable attacker), then the
+ * killer moves, then the other quiet moves by their history score, and finally the captures that lose material
+ * according to {@link StaticExchange}.
+ * <p>
+ * Moves are picked lazily: each call to {@link #next()} scans the rest of its stage for the best move, so a cutoff
+ * after the first few moves skips most of the scoring and all of the sorting. Each ply of a searcher has its own
+ * picker, which works in place on that ply's move buffer.
+ */
+class MovePicker {
+    private static final int HASH = 0;
+    private static final int SCORE_CAPTURES = 1;
+    private static final int GOOD_CAPTURES = 2;
+    private static final int KILLERS = 3;
+    private static final int QUIETS = 4;
+    private static final int BAD_CAPTURES = 5;
+    private static final int DONE = 6;
+
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+    private static final int QUEEN = ChessPiece.PieceType.QUEEN.ordinal();
+    // Score of a capture that loses material, below every capture that doesn't
+    private static final int BAD_CAPTURE = Integer.MIN_VALUE / 2;
+
+    private final StaticExchange exchange;
+    private final int[] scores = new int[LegalMoveGenerator.MAX_MOVES];
+
+    private int[] list;
+    private int count;
+    private Bitboard bitboard;
+    private int hashMove;
+    private int[] killers;
+    private int[] history;
+    private boolean capturesOnly;
+
+    private int stage;
+    // Captures and promotions are list[captureStart, quietStart), and quiet moves list[quietStart, count)
+    private int captureStart;
+    private int quietStart;
+    // Next unpicked capture, killer and quiet move
+    private int nextCapture;
+    private int nextKiller;
+    private int nextQuiet;
+
+    MovePicker(StaticExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    /**
+     * Start picking the moves of a node
+     *
+     * @param list     Legal moves, which are reordered in place
+     * @param count    Number of moves in the list
+     * @param bitboard Board the moves are for
+     * @param hashMove Move to try first, or {@link PackedMove#NONE}
+     * @param killers  Quiet moves that caused a cutoff at the same ply of sibling nodes
+     * @param history  History scores of the side to move, indexed by from square * 64 + to square
+     */
+    void start(int[] list, int count, Bitboard bitboard, int hashMove, int[] killers, int[] history) {
+        this.list = list;
+        this.count = count;
+        this.bitboard = bitboard;
+        this.hashMove = hashMove;
+        this.killers = killers;
+        this.history = history;
+        capturesOnly = false;
+        stage = HASH;
+        captureStart = 0;
+    }
+
+    /**
+     * Start picking only the captures and promotions that don't lose material, for the quiescence search
+     */
+    void startCaptures(int[] list, int count, Bitboard bitboard) {
+        this.list = list;
+        this.count = count;
+        this.bitboard = bitboard;
+        capturesOnly = true;
+        captureStart = 0;
+        scoreCaptures();
+        stage = GOOD_CAPTURES;
+    }
+
+    /**
+     * @return Next move to search, or {@link PackedMove#NONE} once every move has been picked
+     */
+    int next() {
+        switch (stage) {
+            case HASH:
+                stage = SCORE_CAPTURES;
+                // Nothing else is scored until the hash move has been searched, since it often causes a cutoff
+                if (moveToFront(hashMove)) {
+                    captureStart = 1;
+                    return list[0];
+                }
+                // fall through
+            case SCORE_CAPTURES:
+                scoreCaptures();
+                stage = GOOD_CAPTURES;
+                // fall through
+            case GOOD_CAPTURES:
+                if (nextCapture < quietStart && pickBest(nextCapture, quietStart) >= 0) {
+                    return list[nextCapture++];
+                }
+                if (capturesOnly) {
+                    stage = DONE;
+                    return PackedMove.NONE;
+                }
+                stage = KILLERS;
+                nextKiller = 0;
+                // fall through
+            case KILLERS:
+                while (nextKiller < killers.length) {
+                    int killer = killers[nextKiller++];
+                    int index = find(killer, nextQuiet, count);
+                    if (index >= 0) {
+                        swap(index, nextQuiet);
+                        return list[nextQuiet++];
+                    }
+                }
+                stage = QUIETS;
+                scoreQuiets();
+                // fall through
+            case QUIETS:
+                if (nextQuiet < count) {
+                    pickBest(nextQuiet, count);
+                    return list[nextQuiet++];
+                }
+                stage = BAD_CAPTURES;
+                // fall through
+            case BAD_CAPTURES:
+                if (nextCapture < quietStart) {
+                    pickBest(nextCapture, quietStart);
+                    return list[nextCapture++];
+                }
+                stage = DONE;
+                // fall through
+            default:
+                return PackedMove.NONE;
+        }
+    }
+
+    /**
+     * @return True if the move is a capture or promotion, which are not killer or history moves
+     */
+    static boolean isTactical(int move) {
+        return PackedMove.is(move, PackedMove.CAPTURE) || PackedMove.promotion(move) != null;
+    }
+
+    /**
+     * Partition the unpicked moves into captures and quiet moves, and score the captures
+     */
+    private void scoreCaptures() {
+        int end = captureStart;
+        for (int i = captureStart; i < count; i++) {
+            if (isTactical(list[i])) {
+                swap(i, end++);
+            }
+        }
+        quietStart = end;
+        nextCapture = captureStart;
+        nextQuiet = quietStart;
+        for (int i = captureStart; i < quietStart; i++) {
+            scores[i] = captureScore(list[i]);
+        }
+    }
+
+    private int captureScore(int move) {
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        if (promotion != null && promotion.ordinal() != QUEEN) {
+            return BAD_CAPTURE;
+        }
+        int target = bitboard.pieceAt(PackedMove.to(move));
+        // An empty target square is an en passant capture or a promotion, both scored like taking a pawn
+        int victim = target == Bitboard.NO_PIECE ? PAWN : Bitboard.type(target).ordinal();
+        int attacker = Bitboard.type(bitboard.pieceAt(PackedMove.from(move))).ordinal();
+        int score = Evaluation.PIECE_VALUES[victim] * 8 - Evaluation.PIECE_VALUES[attacker] / 100;
+        // Taking a piece at least as valuable as the attacker can't lose material, so only check the others
+        if (promotion == null && Evaluation.PIECE_VALUES[victim] < Evaluation.PIECE_VALUES[attacker]
+                && exchange.evaluate(bitboard, move) < 0) {
+            return BAD_CAPTURE + score;
+        }
+        return score;
+    }
+
+    private void scoreQuiets() {
+        for (int i = nextQuiet; i < count; i++) {
+            scores[i] = history[PackedMove.from(list[i]) << 6 | PackedMove.to(list[i])];
+        }
+    }
+
+    /**
+     * Move the best scored move in list[from, to) to list[from]
+     *
+     * @return Its score
+     */
+    private int pickBest(int from, int to) {
+        int best = from;
+        for (int i = from + 1; i < to; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        swap(best, from);
+        return scores[from];
+    }
+
+    private boolean moveToFront(int move) {
+        int index = find(move, 0, count);
+        if (index < 0) {
+            return false;
+        }
+        swap(index, 0);
+        return true;
+    }
+
+    private int find(int move, int from, int to) {
+        if (move == PackedMove.NONE) {
+            return -1;
+        }
+        for (int i = from; i < to; i++) {
+            if (PackedMove.withoutFlags(list[i]) == PackedMove.withoutFlags(move)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void swap(int i, int j) {
+        int move = list[i];
+        list[i] = list[j];
+        list[j] = move;
+        int score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
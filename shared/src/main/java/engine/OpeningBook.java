@@ -0,0 +1,201 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.LegalMoveGenerator;
+import chess.PackedMove;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Opening book read straight from a memory-mapped file, so that a book of any size adds nothing to the heap and the
+ * operating system shares its pages between processes.
+ * <p>
+ * The file is a 16-byte header (the magic number, the format version and the number of entries) followed by 16-byte
+ * entries sorted by position key (see {@link ChessGame#positionKey()}): the key (8 bytes), the move without flags (2
+ * bytes, see {@link PackedMove}), the move's weight (2 bytes, unsigned) and 4 reserved bytes. A position's moves are
+ * consecutive entries, heaviest first, and a lookup is a binary search for the first of them. All values are
+ * big-endian. Use {@link OpeningBookBuilder} to build a book from PGN files.
+ * <p>
+ * Lookups only use absolute reads of the mapped buffer, so one book can be shared by any number of threads.
+ */
+public class OpeningBook {
+    public static final int MAGIC = 0x43424F4B;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    public static final int ENTRY_BYTES = 16;
+    public static final int MAX_WEIGHT = 0xFFFF;
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    /**
+     * A book move
+     *
+     * @param move   The move
+     * @param weight How often to play it relative to the position's other moves
+     */
+    public record Entry(ChessMove move, int weight) {
+    }
+
+    private OpeningBook(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not an opening book");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported opening book version " + buffer.getInt(4));
+        }
+        long entries = buffer.getLong(8);
+        if (entries < 0 || HEADER_BYTES + entries * ENTRY_BYTES != buffer.capacity()) {
+            throw new IllegalArgumentException("Opening book is truncated or corrupt");
+        }
+        size = (int) entries;
+    }
+
+    /**
+     * Map a book file into memory
+     *
+     * @throws IOException              if the file can't be read
+     * @throws IllegalArgumentException if it is not a book this version can read
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @return Number of entries in the book
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Book moves for the game's current position, heaviest first, or an empty list if it is not in the book
+     */
+    public List<Entry> moves(ChessGame game) {
+        List<Entry> moves = new ArrayList<>();
+        long key = game.positionKey();
+        for (int i = firstEntry(key); i < size && key(i) == key; i++) {
+            // A different position with the same key could have moves that are not legal here
+            ChessMove move = PackedMove.toChessMove(move(i));
+            if (LegalMoveGenerator.isLegal(game, move)) {
+                moves.add(new Entry(move, weight(i)));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Pick a book move at random, in proportion to the weights of the position's legal moves
+     *
+     * @return The move, or null if the position has no legal moves in the book
+     */
+    public ChessMove pick(ChessGame game, RandomGenerator random) {
+        long key = game.positionKey();
+        int first = firstEntry(key);
+        int end = first;
+        long total = 0;
+        for (; end < size && key(end) == key; end++) {
+            // As in moves(), entries of a different position with the same key don't count
+            if (isLegal(game, end)) {
+                total += weight(end);
+            }
+        }
+        if (total == 0) {
+            return null;
+        }
+        long choice = random.nextLong(total);
+        for (int i = first; i < end; i++) {
+            if (!isLegal(game, i)) {
+                continue;
+            }
+            choice -= weight(i);
+            if (choice < 0) {
+                return PackedMove.toChessMove(move(i));
+            }
+        }
+        return null;
+    }
+
+    private boolean isLegal(ChessGame game, int entry) {
+        return LegalMoveGenerator.isLegal(game, PackedMove.toChessMove(move(entry)));
+    }
+
+    /**
+     * @return Index of the first entry whose key is not less than the given key, or the number of entries if none
+     */
+    int firstEntry(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long key(int entry) {
+        return buffer.getLong(HEADER_BYTES + entry * ENTRY_BYTES);
+    }
+
+    private int move(int entry) {
+        return buffer.getShort(HEADER_BYTES + entry * ENTRY_BYTES + 8) & 0xFFFF;
+    }
+
+    private int weight(int entry) {
+        return buffer.getShort(HEADER_BYTES + entry * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+
+    /**
+     * Write a book file
+     *
+     * @param keys    Position key of each entry, in ascending order
+     * @param moves   Packed move of each entry
+     * @param weights Weight of each entry, at most {@link #MAX_WEIGHT}
+     * @param count   Number of entries
+     * @throws IOException              if the file can't be written
+     * @throws IllegalArgumentException if the keys are out of order or a weight is out of range
+     */
+    public static void write(Path path, long[] keys, int[] moves, int[] weights, int count) throws IOException {
+        if ((long) count * ENTRY_BYTES > Integer.MAX_VALUE - HEADER_BYTES) {
+            throw new IllegalArgumentException("Opening book is too large to map: " + count + " entries");
+        }
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && keys[i] < keys[i - 1]) {
+                throw new IllegalArgumentException("Opening book keys must be in ascending order");
+            }
+            if (weights[i] < 0 || weights[i] > MAX_WEIGHT) {
+                throw new IllegalArgumentException("Weight out of range: " + weights[i]);
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(count);
+            for (int i = 0; i < count; i++) {
+                out.writeLong(keys[i]);
+                out.writeShort(PackedMove.withoutFlags(moves[i]));
+                out.writeShort(weights[i]);
+                out.writeInt(0);
+            }
+        }
+    }
+}
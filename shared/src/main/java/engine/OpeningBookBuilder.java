@@ -0,0 +1,178 @@
+package engine;
+
+import chess.ChessGame;
+import chess.PackedMove;
+import chess.PgnGame;
+import chess.PgnReader;
+import chess.San;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} from games. Each move played in the first plies of a game adds to the move's weight
+ * in the position it was played from: 2 if the side that played it went on to win, 1 for a draw or an unknown
+ * result, and nothing for a loss, so that moves which only ever lost are left out of the book.
+ * <p>
+ * Usage: {@code OpeningBookBuilder <book> <pgn>...}
+ */
+public class OpeningBookBuilder {
+    public static final int DEFAULT_MAX_PLY = 24;
+
+    private final int maxPly;
+    // Weight of each move by position key
+    private final Map<Long, Map<Integer, Long>> weights = new HashMap<>();
+    private int games;
+
+    public OpeningBookBuilder() {
+        this(DEFAULT_MAX_PLY);
+    }
+
+    /**
+     * @param maxPly Number of plies from the start of each game to add to the book
+     */
+    public OpeningBookBuilder(int maxPly) {
+        if (maxPly < 1) {
+            throw new IllegalArgumentException("Opening book needs at least one ply per game");
+        }
+        this.maxPly = maxPly;
+    }
+
+    /**
+     * Add every game of a PGN file
+     *
+     * @return Number of games added
+     * @throws IOException if reading fails
+     */
+    public int addPgn(Reader reader) throws IOException {
+        PgnReader pgn = new PgnReader(reader);
+        int added = 0;
+        for (PgnGame game = pgn.next(); game != null; game = pgn.next()) {
+            addGame(game);
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Add the opening of a game. A game with an invalid starting position adds nothing, and a game with an illegal
+     * or malformed move adds only the moves before it.
+     */
+    public void addGame(PgnGame pgn) {
+        String result = pgn.result() != null ? pgn.result() : pgn.tag("Result");
+        ChessGame game;
+        try {
+            game = pgn.startingPosition();
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        games++;
+        for (int ply = 0; ply < maxPly && ply < pgn.moves().size(); ply++) {
+            int move;
+            try {
+                move = San.parsePacked(game, pgn.moves().get(ply));
+            } catch (IllegalArgumentException e) {
+                return;
+            }
+            int weight = weight(result, game.getTeamTurn());
+            if (weight > 0) {
+                weights.computeIfAbsent(game.positionKey(), key -> new HashMap<>())
+                        .merge(PackedMove.withoutFlags(move), (long) weight, Long::sum);
+            }
+            game.makeMoveUnchecked(move);
+        }
+    }
+
+    /**
+     * @return Number of games added
+     */
+    public int games() {
+        return games;
+    }
+
+    /**
+     * @return Number of distinct positions in the book so far
+     */
+    public int positions() {
+        return weights.size();
+    }
+
+    /**
+     * Write the book, scaling down the weights of any position whose heaviest move would overflow
+     *
+     * @return Number of entries written
+     * @throws IOException if writing fails
+     */
+    public int write(Path path) throws IOException {
+        long[] keys = weights.keySet().stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(keys);
+        int count = weights.values().stream().mapToInt(Map::size).sum();
+        long[] entryKeys = new long[count];
+        int[] moves = new int[count];
+        int[] entryWeights = new int[count];
+        int entry = 0;
+        for (long key : keys) {
+            Map<Integer, Long> positionWeights = weights.get(key);
+            long max = positionWeights.values().stream().mapToLong(Long::longValue).max().orElse(1);
+            double scale = Math.min(1.0, (double) OpeningBook.MAX_WEIGHT / max);
+            int first = entry;
+            for (Map.Entry<Integer, Long> move : positionWeights.entrySet()) {
+                entryKeys[entry] = key;
+                moves[entry] = move.getKey();
+                entryWeights[entry] = (int) Math.max(1, Math.round(move.getValue() * scale));
+                // Keep the position's moves sorted heaviest first
+                for (int i = entry; i > first && entryWeights[i] > entryWeights[i - 1]; i--) {
+                    swap(moves, i, i - 1);
+                    swap(entryWeights, i, i - 1);
+                }
+                entry++;
+            }
+        }
+        OpeningBook.write(path, entryKeys, moves, entryWeights, count);
+        return count;
+    }
+
+    private static int weight(String result, ChessGame.TeamColor mover) {
+        if (result == null) {
+            return 1;
+        }
+        return switch (result) {
+            case PgnGame.WHITE_WINS -> mover == ChessGame.TeamColor.WHITE ? 2 : 0;
+            case PgnGame.BLACK_WINS -> mover == ChessGame.TeamColor.BLACK ? 2 : 0;
+            default -> 1;
+        };
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int value = array[i];
+        array[i] = array[j];
+        array[j] = value;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: OpeningBookBuilder <book> <pgn>...");
+            return;
+        }
+        long start = System.nanoTime();
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        for (int i = 1; i < args.length; i++) {
+            // PGN files are Latin-1
+            try (Reader reader = new InputStreamReader(Files.newInputStream(Path.of(args[i])),
+                    StandardCharsets.ISO_8859_1)) {
+                builder.addPgn(reader);
+            }
+        }
+        Path book = Path.of(args[0]);
+        int entries = builder.write(book);
+        System.out.printf("%d games, %d positions, %d entries, %d bytes in %.1f s%n", builder.games(),
+                builder.positions(), entries, Files.size(book), (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,58 @@
+package engine;
+
+/**
+ * When a search should stop. A limit of 0 means no limit; the search stops at the first limit it reaches, and at
+ * {@link Engine#MAX_DEPTH} if it has no other limit.
+ *
+ * @param depth      Maximum depth in plies
+ * @param timeMillis Maximum time in milliseconds
+ * @param nodes      Maximum number of nodes
+ */
+public record SearchLimits(int depth, long timeMillis, long nodes) {
+
+    public SearchLimits {
+        if (depth < 0 || timeMillis < 0 || nodes < 0) {
+            throw new IllegalArgumentException("Search limits must not be negative");
+        }
+    }
+
+    /**
+     * @return Limits that search to the given depth
+     */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    /**
+     * @return Limits that search for the given time
+     */
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(0, timeMillis, 0);
+    }
+
+    /**
+     * @return Limits that search the given number of nodes
+     */
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, 0, nodes);
+    }
+
+    public SearchLimits withDepth(int depth) {
+        return new SearchLimits(depth, timeMillis, nodes);
+    }
+
+    public SearchLimits withTime(long timeMillis) {
+        return new SearchLimits(depth, timeMillis, nodes);
+    }
+
+    public SearchLimits withNodes(long nodes) {
+        return new SearchLimits(depth, timeMillis, nodes);
+    }
+
+    /**
+     * @return Depth at which iterative deepening stops
+     */
+    int maxDepth() {
+        return depth == 0 ? Engine.MAX_DEPTH : Math.min(depth, Engine.MAX_DEPTH);
+    }
+}
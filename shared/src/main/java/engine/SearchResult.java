@@ -0,0 +1,45 @@
+package engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * Outcome of the deepest completed iteration of a search
+ *
+ * @param bestMove           Best move found, or null if the side to move has no legal moves
+ * @param score              Score in centipawns from the point of view of the side to move, see {@link #isMate()}
+ * @param depth              Depth of the deepest completed iteration
+ * @param nodes              Nodes searched in total, including quiescence and any unfinished iteration
+ * @param timeMillis         Time spent searching
+ * @param principalVariation Expected line of play, starting with the best move
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long timeMillis,
+                           List<ChessMove> principalVariation) {
+
+    /**
+     * @return True if the score is a forced mate for either side
+     */
+    public boolean isMate() {
+        return Math.abs(score) > Engine.MATE - Engine.MAX_PLY;
+    }
+
+    /**
+     * @return Number of moves until mate, positive if the side to move mates and negative if it is mated, or 0 if
+     * the score is not a mate
+     */
+    public int mateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        int plies = Engine.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+    }
+
+    /**
+     * @return Search speed in nodes per second
+     */
+    public long nodesPerSecond() {
+        return nodes * 1000 / Math.max(1, timeMillis);
+    }
+}
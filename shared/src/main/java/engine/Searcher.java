@@ -0,0 +1,350 @@
+package engine;
+
+import chess.ChessGame;
+import chess.LegalMoveGenerator;
+import chess.PackedMove;
+
+import java.util.Arrays;
+
+/**
+ * One thread of an {@link Engine} search, with its own copy of the game and its own move buffers. The main searcher
+ * enforces the search limits; helper searchers search until the engine tells them it has finished, and share what
+ * they learn only through the transposition table.
+ */
+class Searcher {
+    private static final int INFINITY = Engine.MATE + 1;
+
+    private static final int MAX_PLY = Engine.MAX_PLY;
+    private static final int MATE = Engine.MATE;
+    // Halfmoves without a capture or pawn move after which either side can claim a draw
+    private static final int FIFTY_MOVE_HALFMOVES = 100;
+    // Nodes between checks of the clock and updates of the shared node count, minus one
+    private static final int CHECK_MASK = 1023;
+    private static final int KILLERS = 2;
+    // History score past which every score of that side is halved, so that recent cutoffs count for more
+    private static final int MAX_HISTORY = 1 << 20;
+
+    private final Engine engine;
+    private final TranspositionTable table;
+    private final boolean main;
+    private final int[][] moves = new int[MAX_PLY][LegalMoveGenerator.MAX_MOVES];
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+    // Quiet moves that last caused a cutoff at each ply
+    private final int[][] killers = new int[MAX_PLY][KILLERS];
+    // How often each quiet move caused a cutoff, weighted by depth, by color and then from square * 64 + to square
+    private final int[][] history = new int[2][64 * 64];
+    private final int[] tablebaseSquares = new int[Tablebase.MAX_PIECES];
+    private int[] previousPv = new int[0];
+    private boolean followPv;
+
+    private ChessGame game;
+    private Tablebase tablebase;
+    private long nodes;
+    // Nodes searched by the helpers, as of the last check
+    private long otherNodes;
+    private long nodeLimit;
+    private long deadline;
+    private boolean canStop;
+    private boolean stopped;
+
+    Searcher(Engine engine, TranspositionTable table, boolean main) {
+        this.engine = engine;
+        this.table = table;
+        this.main = main;
+        StaticExchange exchange = new StaticExchange();
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            pickers[ply] = new MovePicker(exchange);
+        }
+    }
+
+    /**
+     * Prepare to search a game from scratch
+     *
+     * @param deadline {@link System#nanoTime()} at which to stop, or 0
+     */
+    void start(ChessGame game, long nodeLimit, long deadline) {
+        this.game = new ChessGame(game);
+        tablebase = engine.getTablebase();
+        this.nodeLimit = nodeLimit;
+        this.deadline = deadline;
+        nodes = 0;
+        otherNodes = 0;
+        previousPv = new int[0];
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, PackedMove.NONE);
+        }
+        for (int[] colorHistory : history) {
+            Arrays.fill(colorHistory, 0);
+        }
+        // The main searcher always completes depth 1, so that there is a result
+        canStop = !main;
+        stopped = false;
+    }
+
+    /**
+     * Search one iteration to the given depth
+     *
+     * @return Score of the root position, which is only meaningful if the search was not stopped
+     */
+    int iterate(int depth) {
+        followPv = true;
+        int score = search(depth, 0, -INFINITY, INFINITY);
+        if (!stopped) {
+            previousPv = Arrays.copyOf(pv[0], pvLength[0]);
+            canStop = true;
+        }
+        return score;
+    }
+
+    /**
+     * Search iterations from the given depth until stopped, as a helper of the main searcher
+     *
+     * @return Number of nodes searched
+     */
+    long help(int firstDepth) {
+        for (int depth = firstDepth; depth <= Engine.MAX_DEPTH && !stopped; depth++) {
+            iterate(depth);
+        }
+        engine.addHelperNodes(nodes & CHECK_MASK);
+        return nodes;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    long nodes() {
+        return nodes;
+    }
+
+    /**
+     * @return Principal variation of the last complete iteration
+     */
+    int[] principalVariation() {
+        return previousPv;
+    }
+
+    void finish() {
+        game = null;
+    }
+
+    private int search(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        // A position that occurred before can be repeated again, so score it as the draw it can be turned into
+        if (ply > 0 && game.getRepetitions() > 0) {
+            return 0;
+        }
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        // Checkmate takes precedence over the fifty-move rule
+        if (ply > 0 && game.getHalfmoveClock() >= FIFTY_MOVE_HALFMOVES
+                && (!inCheck || LegalMoveGenerator.hasLegalMoves(game, game.getTeamTurn()))) {
+            return 0;
+        }
+        if (ply > 0 && tablebase != null) {
+            int entry = probe();
+            if (entry != Tablebase.NOT_COVERED) {
+                return Tablebase.score(entry, ply);
+            }
+        }
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return quiesce(ply, alpha, beta);
+        }
+        countNode();
+
+        long key = game.positionKey();
+        long entry = table.probe(key);
+        int hashMove = PackedMove.NONE;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            int score = TranspositionTable.score(entry, ply);
+            int bound = TranspositionTable.bound(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth && (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER && score >= beta)
+                    || (bound == TranspositionTable.UPPER && score <= alpha))) {
+                return score;
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = LegalMoveGenerator.generate(game, list);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        int firstMove = hashMove;
+        if (followPv) {
+            // Search the principal variation of the last iteration first, ahead of the hash move
+            int pvMove = ply < previousPv.length ? previousPv[ply] : PackedMove.NONE;
+            followPv = contains(list, count, pvMove);
+            if (followPv) {
+                firstMove = pvMove;
+            }
+        }
+        int color = game.getTeamTurn().ordinal();
+        MovePicker picker = pickers[ply];
+        picker.start(list, count, game.getBoard().getBitboard(), firstMove, killers[ply], history[color]);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = PackedMove.NONE;
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            game.makeMoveUnchecked(move);
+            int score = -search(depth - 1, ply + 1, -beta, -alpha);
+            game.unmakeMove();
+            followPv = false;
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+                updatePv(ply, move);
+                if (alpha >= beta) {
+                    if (!MovePicker.isTactical(move)) {
+                        updateQuietStats(ply, color, move, depth);
+                    }
+                    break;
+                }
+            }
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, best, depth, bound, ply);
+        return best;
+    }
+
+    /**
+     * Search captures and promotions only, so that the evaluation is not taken in the middle of an exchange. The
+     * side to move can also stand pat on the static evaluation instead, unless it is in check, in which case every
+     * evasion is searched and having none is checkmate.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        countNode();
+        if (ply > 0 && tablebase != null) {
+            int entry = probe();
+            if (entry != Tablebase.NOT_COVERED) {
+                return Tablebase.score(entry, ply);
+            }
+        }
+        if (ply >= MAX_PLY - 1) {
+            return Evaluation.evaluate(game);
+        }
+        int[] list = moves[ply];
+        MovePicker picker = pickers[ply];
+        int count = LegalMoveGenerator.generate(game, list);
+        int best;
+        if (game.isInCheck(game.getTeamTurn())) {
+            if (count == 0) {
+                return -MATE + ply;
+            }
+            best = -INFINITY;
+            int color = game.getTeamTurn().ordinal();
+            picker.start(list, count, game.getBoard().getBitboard(), PackedMove.NONE, killers[ply], history[color]);
+        } else {
+            best = Evaluation.evaluate(game);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+            picker.startCaptures(list, count, game.getBoard().getBitboard());
+        }
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            game.makeMoveUnchecked(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+            }
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return Tablebase entry of the current position, or {@link Tablebase#NOT_COVERED}
+     */
+    private int probe() {
+        if (Long.bitCount(game.getBoard().getBitboard().occupied()) > Tablebase.MAX_PIECES) {
+            return Tablebase.NOT_COVERED;
+        }
+        return tablebase.entry(game, tablebaseSquares);
+    }
+
+    private void countNode() {
+        nodes++;
+        if (!canStop) {
+            return;
+        }
+        if ((nodes & CHECK_MASK) == 0) {
+            if (!main) {
+                engine.addHelperNodes(CHECK_MASK + 1);
+            } else {
+                otherNodes = engine.helperNodes();
+            }
+        }
+        if (!main) {
+            stopped = engine.isFinished();
+        } else if (engine.isStopRequested() || (nodeLimit != 0 && nodes + otherNodes >= nodeLimit)) {
+            stopped = true;
+        } else if (deadline != 0 && (nodes & CHECK_MASK) == 0 && System.nanoTime() >= deadline) {
+            stopped = true;
+        }
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+        pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+    }
+
+    /**
+     * Remember a quiet move that caused a cutoff, so that it is tried early at the same ply of sibling nodes and
+     * wherever else it can be played
+     */
+    private void updateQuietStats(int ply, int color, int move, int depth) {
+        int[] plyKillers = killers[ply];
+        if (PackedMove.withoutFlags(plyKillers[0]) != PackedMove.withoutFlags(move)) {
+            System.arraycopy(plyKillers, 0, plyKillers, 1, KILLERS - 1);
+            plyKillers[0] = move;
+        }
+        int[] colorHistory = history[color];
+        int index = PackedMove.from(move) << 6 | PackedMove.to(move);
+        colorHistory[index] += depth * depth;
+        if (colorHistory[index] > MAX_HISTORY) {
+            for (int i = 0; i < colorHistory.length; i++) {
+                colorHistory[i] /= 2;
+            }
+        }
+    }
+
+    /**
+     * @return True if the move is in the list
+     */
+    private static boolean contains(int[] list, int count, int move) {
+        if (move == PackedMove.NONE) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (PackedMove.withoutFlags(list[i]) == PackedMove.withoutFlags(move)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
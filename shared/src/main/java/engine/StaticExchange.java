@@ -0,0 +1,85 @@
+package engine;
+
+import chess.Bitboard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.PackedMove;
+
+/**
+ * Static exchange evaluation: the material a capture wins or loses once both sides have made every recapture on the
+ * target square that pays off, each always recapturing with its least valuable piece. Sliding pieces behind others
+ * join in as the pieces in front of them are traded off. Pins and checks are ignored.
+ * <p>
+ * Each searcher has its own instance, which reuses one buffer so that evaluating an exchange does not allocate.
+ */
+class StaticExchange {
+    private static final int MAX_EXCHANGES = 32;
+    // Value of each piece type in an exchange, by ordinal (KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN)
+    private static final int[] VALUES = {20000, 900, 330, 320, 500, 100};
+    // Piece types from least to most valuable
+    private static final ChessPiece.PieceType[] ATTACKER_ORDER = {
+            ChessPiece.PieceType.PAWN,
+            ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.KING,
+    };
+
+    private final int[] gain = new int[MAX_EXCHANGES];
+
+    /**
+     * @param bitboard Board before the move
+     * @param move     Capture to evaluate
+     * @return Material won by the side making the capture, in centipawns, which is negative if it loses material
+     */
+    int evaluate(Bitboard bitboard, int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int attacker = bitboard.pieceAt(from);
+        ChessGame.TeamColor side = Bitboard.color(attacker);
+        long occupied = bitboard.occupied() & ~(1L << from);
+        int victimValue;
+        if (PackedMove.is(move, PackedMove.EN_PASSANT)) {
+            victimValue = VALUES[ChessPiece.PieceType.PAWN.ordinal()];
+            occupied &= ~(1L << Bitboard.square(Bitboard.row(from), Bitboard.column(to)));
+        } else {
+            int victim = bitboard.pieceAt(to);
+            victimValue = victim == Bitboard.NO_PIECE ? 0 : VALUES[Bitboard.type(victim).ordinal()];
+        }
+
+        gain[0] = victimValue;
+        int onSquare = VALUES[Bitboard.type(attacker).ordinal()];
+        int exchanges = 1;
+        for (; exchanges < MAX_EXCHANGES; exchanges++) {
+            side = side.opponent();
+            long attackers = bitboard.attackersTo(to, side, occupied) & occupied;
+            if (attackers == 0) {
+                break;
+            }
+            ChessPiece.PieceType type = leastValuable(bitboard, attackers, side);
+            // A king can only recapture if the other side has nothing left to take it with
+            if (type == ChessPiece.PieceType.KING
+                    && (bitboard.attackersTo(to, side.opponent(), occupied) & occupied) != 0) {
+                break;
+            }
+            gain[exchanges] = onSquare - gain[exchanges - 1];
+            onSquare = VALUES[type.ordinal()];
+            occupied &= ~Long.lowestOneBit(attackers & bitboard.pieces(side, type));
+        }
+        // Either side can stop recapturing when it would lose material, so work back from the last capture
+        while (--exchanges > 0) {
+            gain[exchanges - 1] = -Math.max(-gain[exchanges - 1], gain[exchanges]);
+        }
+        return gain[0];
+    }
+
+    private static ChessPiece.PieceType leastValuable(Bitboard bitboard, long attackers, ChessGame.TeamColor side) {
+        for (ChessPiece.PieceType type : ATTACKER_ORDER) {
+            if ((attackers & bitboard.pieces(side, type)) != 0) {
+                return type;
+            }
+        }
+        throw new IllegalStateException("No attacker found");
+    }
+}
@@ -0,0 +1,196 @@
+package engine;
+
+import chess.Bitboard;
+import chess.ChessGame;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Endgame tablebases read straight from memory-mapped files, which give the exact result of every position of an
+ * {@link Endgame} and how many plies it takes to mate with best play. Positions with castling rights are not covered,
+ * and the fifty-move rule is ignored.
+ * <p>
+ * Each endgame has its own file, named after it (e.g. {@code KQK.tb}): a 16-byte header (the magic number, the format
+ * version, the number of entries and the bits per entry) followed by the entries, bit-packed from the lowest bit of
+ * each byte up. An entry is 0 for a draw or an illegal position, and otherwise one more than the number of plies to
+ * mate; whether that is a win or a loss follows from the side to move, since the lone king can never win. Header
+ * values are big-endian. Use {@link TablebaseGenerator} to generate the files.
+ * <p>
+ * Probes only use absolute reads of the mapped buffers, so one tablebase can be shared by any number of threads.
+ */
+public class Tablebase {
+    public static final int MAGIC = 0x4354424C;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    public static final int MAX_PIECES = 4;
+    public static final String EXTENSION = ".tb";
+    static final int NOT_COVERED = Integer.MIN_VALUE;
+    // Entries are read two bytes at a time
+    private static final int MAX_BITS = 8;
+
+    // Mapped file and bits per entry of each endgame, by ordinal
+    private final ByteBuffer[] tables = new ByteBuffer[Endgame.values().length];
+    private final int[] bits = new int[Endgame.values().length];
+
+    /**
+     * Result of a position with best play
+     *
+     * @param value       1 if the side to move wins, -1 if it loses and 0 for a draw
+     * @param pliesToMate Number of plies until checkmate, or 0 for a draw
+     */
+    public record Result(int value, int pliesToMate) {
+        public static final Result DRAW = new Result(0, 0);
+    }
+
+    private Tablebase() {
+    }
+
+    /**
+     * Map every table file in a directory into memory. Endgames without a file are not covered.
+     *
+     * @throws IOException              if a file can't be read
+     * @throws IllegalArgumentException if a file is not a table this version can read
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        for (Endgame endgame : Endgame.values()) {
+            Path path = directory.resolve(endgame.name() + EXTENSION);
+            if (!Files.exists(path)) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                // The mapping stays valid after the channel is closed
+                tablebase.add(endgame, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+        return tablebase;
+    }
+
+    private void add(Endgame endgame, ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a tablebase: " + endgame);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported tablebase version " + buffer.getInt(4));
+        }
+        int entryBits = buffer.getInt(12);
+        if (buffer.getInt(8) != endgame.size() || entryBits < 1 || entryBits > MAX_BITS
+                || buffer.capacity() != HEADER_BYTES + dataBytes(endgame.size(), entryBits)) {
+            throw new IllegalArgumentException("Tablebase is truncated or corrupt: " + endgame);
+        }
+        tables[endgame.ordinal()] = buffer;
+        bits[endgame.ordinal()] = entryBits;
+    }
+
+    /**
+     * @return Whether the tablebase has the endgame's table
+     */
+    public boolean contains(Endgame endgame) {
+        return tables[endgame.ordinal()] != null;
+    }
+
+    /**
+     * @return Result of the game's current position, or null if the tablebase doesn't cover it
+     */
+    public Result probe(ChessGame game) {
+        int entry = entry(game, new int[MAX_PIECES]);
+        if (entry == NOT_COVERED) {
+            return null;
+        }
+        return entry == 0 ? Result.DRAW : new Result(Integer.signum(entry), Math.abs(entry) - 1);
+    }
+
+    /**
+     * @return Search score of an entry at the given ply, as a mate score unless it is a draw
+     */
+    static int score(int entry, int ply) {
+        return entry == 0 ? 0 : Integer.signum(entry) * (Engine.MATE - ply - Math.abs(entry) + 1);
+    }
+
+    /**
+     * Look up the game's current position without allocating
+     *
+     * @param squares Buffer for the squares of the pieces, of at least {@link #MAX_PIECES}
+     * @return The position's entry, negated if the side to move loses, or {@link #NOT_COVERED}
+     */
+    int entry(ChessGame game, int[] squares) {
+        Bitboard bitboard = game.getBoard().getBitboard();
+        if (Long.bitCount(bitboard.occupied()) > MAX_PIECES || game.getCastlingRights() != 0) {
+            return NOT_COVERED;
+        }
+        Endgame endgame = Endgame.of(bitboard);
+        ByteBuffer buffer = endgame != null ? tables[endgame.ordinal()] : null;
+        if (buffer == null) {
+            return NOT_COVERED;
+        }
+        ChessGame.TeamColor strong = endgame.strongSide(bitboard);
+        // Tables have the strong side as white, so swap the colors of a position where it is black
+        int flip = strong == ChessGame.TeamColor.WHITE ? 0 : 56;
+        squares[0] = bitboard.kingSquare(strong) ^ flip;
+        squares[1] = bitboard.kingSquare(strong.opponent()) ^ flip;
+        for (int i = 2; i < endgame.pieceCount(); i++) {
+            squares[i] = Long.numberOfTrailingZeros(bitboard.pieces(strong, endgame.piece(i - 2))) ^ flip;
+        }
+        boolean strongToMove = game.getTeamTurn() == strong;
+        int entry = entry(buffer, bits[endgame.ordinal()], endgame.index(strongToMove, squares));
+        return strongToMove ? entry : -entry;
+    }
+
+    private static int entry(ByteBuffer buffer, int entryBits, int index) {
+        long bit = (long) index * entryBits;
+        int offset = HEADER_BYTES + (int) (bit >>> 3);
+        int word = (buffer.get(offset) & 0xFF) | (buffer.get(offset + 1) & 0xFF) << 8;
+        return word >>> (bit & 7) & (1 << entryBits) - 1;
+    }
+
+    /**
+     * Write an endgame's table file into a directory
+     *
+     * @param entries Entry of each position (see {@link Tablebase}), unsigned
+     * @return Path of the file
+     * @throws IOException              if the file can't be written
+     * @throws IllegalArgumentException if there is not one entry per position
+     */
+    public static Path write(Path directory, Endgame endgame, byte[] entries) throws IOException {
+        if (entries.length != endgame.size()) {
+            throw new IllegalArgumentException("Expected " + endgame.size() + " entries, got " + entries.length);
+        }
+        int max = 0;
+        for (byte entry : entries) {
+            max = Math.max(max, entry & 0xFF);
+        }
+        int entryBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(max));
+        byte[] data = new byte[(int) dataBytes(entries.length, entryBits)];
+        long bit = 0;
+        for (byte entry : entries) {
+            int offset = (int) (bit >>> 3);
+            int word = (entry & 0xFF) << (bit & 7);
+            data[offset] |= (byte) word;
+            data[offset + 1] |= (byte) (word >>> 8);
+            bit += entryBits;
+        }
+        Path path = directory.resolve(endgame.name() + EXTENSION);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.length);
+            out.writeInt(entryBits);
+            out.write(data);
+        }
+        return path;
+    }
+
+    /**
+     * @return Bytes of bit-packed entries, plus one so that the last entry can be read two bytes at a time
+     */
+    private static long dataBytes(int entries, int entryBits) {
+        return ((long) entries * entryBits + 7) / 8 + 1;
+    }
+}
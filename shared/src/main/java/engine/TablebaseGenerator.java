@@ -0,0 +1,326 @@
+package engine;
+
+import chess.Attacks;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Generates {@link Tablebase} tables by retrograde analysis. The first pass finds every position where the lone king
+ * is checkmated; after that, passes alternate between the sides. A position with the strong side to move is won in
+ * n plies once it has a move to a position lost in n - 1, and a position with the lone king to move is lost in n
+ * plies once every move leads to a won position, the slowest in n - 1. Whatever is left when the passes stop finding
+ * anything is a draw. Pawn promotions look up the tables of the new piece, so those are generated first.
+ * <p>
+ * Each pass only reads entries of the side that is not moving and only writes entries of the side that is, so the
+ * positions of a pass are swept in parallel by a ForkJoinPool without any locking.
+ * <p>
+ * Usage: {@code TablebaseGenerator <directory> [threads]}
+ */
+public class TablebaseGenerator implements AutoCloseable {
+    // Positions per task of a pass
+    private static final int SPLIT_SIZE = 1 << 14;
+    // Entry of an illegal position while the table is generated
+    private static final byte ILLEGAL = (byte) 0xFF;
+    private static final int MAX_ENTRY = 0xFE;
+
+    private final ForkJoinPool pool;
+    private final Map<Endgame, byte[]> tables = new EnumMap<>(Endgame.class);
+
+    /**
+     * @param threads Number of threads to sweep the positions with
+     */
+    public TablebaseGenerator(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Tablebase generation needs at least one thread");
+        }
+        pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Generate an endgame's table, along with the tables its promotions lead to
+     *
+     * @return Entry of each position, as written by {@link Tablebase#write}
+     */
+    public synchronized byte[] generate(Endgame endgame) {
+        byte[] entries = tables.get(endgame);
+        if (entries == null) {
+            boolean pawns = endgame.piece(0) == ChessPiece.PieceType.PAWN;
+            // Promoting to a bishop or a knight only draws, so only queens and rooks matter
+            Generation generation = new Generation(endgame, pawns ? generate(Endgame.KQK) : null,
+                    pawns ? generate(Endgame.KRK) : null);
+            entries = generation.run();
+            tables.put(endgame, entries);
+        }
+        return entries;
+    }
+
+    /**
+     * Shut down the threads
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Generation of one table
+     */
+    private final class Generation {
+        private final Endgame endgame;
+        private final byte[] entries;
+        private final byte[] queens;
+        private final byte[] rooks;
+        // Passes of the side to move fill in the first half of the table, passes of the lone king the second
+        private final int half;
+
+        Generation(Endgame endgame, byte[] queens, byte[] rooks) {
+            this.endgame = endgame;
+            this.queens = queens;
+            this.rooks = rooks;
+            entries = new byte[endgame.size()];
+            half = entries.length / 2;
+        }
+
+        byte[] run() {
+            pool.invoke(new Pass(0, entries.length, 0));
+            // Positions after a promotion can be lost in as many plies as the promoted piece's table has
+            int lastPromotion = queens != null ? Math.max(maxEntry(queens), maxEntry(rooks)) : 0;
+            int empty = 0;
+            for (int pass = 1; empty < 2 || pass <= lastPromotion + 1; pass++) {
+                if (pass > MAX_ENTRY) {
+                    throw new IllegalStateException("Mate is too far away to store in " + endgame);
+                }
+                boolean whiteToMove = pass % 2 == 0;
+                long found = pool.invoke(whiteToMove ? new Pass(0, half, pass) : new Pass(half, entries.length, pass));
+                empty = found == 0 ? empty + 1 : 0;
+            }
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i] == ILLEGAL) {
+                    entries[i] = 0;
+                }
+            }
+            return entries;
+        }
+
+        /**
+         * Sweep of a range of positions in one pass
+         */
+        private final class Pass extends RecursiveTask<Long> {
+            private final int from;
+            private final int to;
+            private final int pass;
+
+            Pass(int from, int to, int pass) {
+                this.from = from;
+                this.to = to;
+                this.pass = pass;
+            }
+
+            @Override
+            protected Long compute() {
+                if (to - from > SPLIT_SIZE) {
+                    int middle = (from + to) >>> 1;
+                    Pass left = new Pass(from, middle, pass);
+                    left.fork();
+                    long right = new Pass(middle, to, pass).compute();
+                    return left.join() + right;
+                }
+                int[] squares = new int[endgame.pieceCount()];
+                long found = 0;
+                for (int index = from; index < to; index++) {
+                    if (entries[index] != 0) {
+                        continue;
+                    }
+                    boolean whiteToMove = endgame.decode(index, squares);
+                    int entry;
+                    if (pass == 0) {
+                        entry = isLegal(squares, whiteToMove) ? 0 : ILLEGAL;
+                    } else if (whiteToMove) {
+                        entry = winningEntry(squares, pass);
+                    } else {
+                        entry = losingEntry(squares, pass);
+                    }
+                    if (entry != 0) {
+                        entries[index] = (byte) entry;
+                        found++;
+                    }
+                }
+                return found;
+            }
+        }
+
+        private boolean isLegal(int[] squares, boolean whiteToMove) {
+            long occupied = 0;
+            for (int square : squares) {
+                if ((occupied & 1L << square) != 0) {
+                    return false;
+                }
+                occupied |= 1L << square;
+            }
+            for (int i = 2; i < squares.length; i++) {
+                int rank = squares[i] >> 3;
+                if (endgame.piece(i - 2) == ChessPiece.PieceType.PAWN && (rank == 0 || rank == 7)) {
+                    return false;
+                }
+            }
+            if ((Attacks.king(squares[0]) & 1L << squares[1]) != 0) {
+                return false;
+            }
+            // The side that just moved can't have left its opponent's king in check
+            return !whiteToMove || (whiteAttacks(squares, occupied) & 1L << squares[1]) == 0;
+        }
+
+        /**
+         * @return Entry of a position with the strong side to move if it mates in pass plies, or 0
+         */
+        private int winningEntry(int[] squares, int pass) {
+            long occupied = occupied(squares);
+            int king = squares[0];
+            long targets = Attacks.king(king) & ~occupied & ~Attacks.king(squares[1]);
+            for (; targets != 0; targets &= targets - 1) {
+                squares[0] = Long.numberOfTrailingZeros(targets);
+                int entry = entries[endgame.index(false, squares)] & 0xFF;
+                squares[0] = king;
+                if (entry == pass - 1) {
+                    return pass;
+                }
+            }
+            for (int i = 2; i < squares.length; i++) {
+                int from = squares[i];
+                ChessPiece.PieceType type = endgame.piece(i - 2);
+                if (type == ChessPiece.PieceType.PAWN) {
+                    if (pawnWins(squares, i, occupied, pass)) {
+                        return pass;
+                    }
+                    continue;
+                }
+                for (targets = attacks(type, from, occupied) & ~occupied; targets != 0; targets &= targets - 1) {
+                    squares[i] = Long.numberOfTrailingZeros(targets);
+                    int entry = entries[endgame.index(false, squares)] & 0xFF;
+                    squares[i] = from;
+                    if (entry == pass - 1) {
+                        return pass;
+                    }
+                }
+            }
+            return 0;
+        }
+
+        private boolean pawnWins(int[] squares, int i, long occupied, int pass) {
+            int from = squares[i];
+            int push = from + 8;
+            if ((occupied & 1L << push) != 0) {
+                return false;
+            }
+            if (push >> 3 == 7) {
+                squares[i] = push;
+                // The promoted piece's table has the same squares in the same order
+                int queen = queens[Endgame.KQK.index(false, squares)] & 0xFF;
+                int rook = rooks[Endgame.KRK.index(false, squares)] & 0xFF;
+                squares[i] = from;
+                // A position won sooner by promoting would have been found in an earlier pass
+                return queen == pass - 1 || rook == pass - 1;
+            }
+            squares[i] = push;
+            boolean wins = (entries[endgame.index(false, squares)] & 0xFF) == pass - 1;
+            if (!wins && from >> 3 == 1 && (occupied & 1L << push + 8) == 0) {
+                squares[i] = push + 8;
+                wins = (entries[endgame.index(false, squares)] & 0xFF) == pass - 1;
+            }
+            squares[i] = from;
+            return wins;
+        }
+
+        /**
+         * @return Entry of a position with the lone king to move if it is mated in pass plies, or 0
+         */
+        private int losingEntry(int[] squares, int pass) {
+            int king = squares[1];
+            long occupied = occupied(squares);
+            long attacked = whiteAttacks(squares, occupied & ~(1L << king));
+            long targets = Attacks.king(king) & ~attacked;
+            if (targets == 0) {
+                // Checkmate is found in the first pass, and stalemate is a draw
+                return pass == 1 && (attacked & 1L << king) != 0 ? 1 : 0;
+            }
+            if (pass == 1 || (targets & occupied) != 0) {
+                // Capturing an undefended piece leaves too little material to mate
+                return 0;
+            }
+            for (; targets != 0; targets &= targets - 1) {
+                squares[1] = Long.numberOfTrailingZeros(targets);
+                int entry = entries[endgame.index(true, squares)] & 0xFF;
+                squares[1] = king;
+                if (entry == 0) {
+                    return 0;
+                }
+            }
+            return pass;
+        }
+
+        /**
+         * @return Squares attacked by the strong side, with sliders blocked by the given pieces
+         */
+        private long whiteAttacks(int[] squares, long occupied) {
+            long attacked = Attacks.king(squares[0]);
+            for (int i = 2; i < squares.length; i++) {
+                attacked |= attacks(endgame.piece(i - 2), squares[i], occupied);
+            }
+            return attacked;
+        }
+
+        private static long attacks(ChessPiece.PieceType type, int square, long occupied) {
+            return switch (type) {
+                case QUEEN -> Attacks.queen(square, occupied);
+                case ROOK -> Attacks.rook(square, occupied);
+                case BISHOP -> Attacks.bishop(square, occupied);
+                case KNIGHT -> Attacks.knight(square);
+                case PAWN -> Attacks.pawn(ChessGame.TeamColor.WHITE, square);
+                case KING -> Attacks.king(square);
+            };
+        }
+
+        private static long occupied(int[] squares) {
+            long occupied = 0;
+            for (int square : squares) {
+                occupied |= 1L << square;
+            }
+            return occupied;
+        }
+
+        private static int maxEntry(byte[] entries) {
+            int max = 0;
+            for (byte entry : entries) {
+                max = Math.max(max, entry & 0xFF);
+            }
+            return max;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: TablebaseGenerator <directory> [threads]");
+            return;
+        }
+        Path directory = Files.createDirectories(Path.of(args[0]));
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        try (TablebaseGenerator generator = new TablebaseGenerator(threads)) {
+            for (Endgame endgame : Endgame.values()) {
+                long start = System.nanoTime();
+                byte[] entries = generator.generate(endgame);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                Path path = Tablebase.write(directory, endgame, entries);
+                System.out.printf("%s: %d entries, %d bytes in %.1f s%n", endgame, entries.length, Files.size(path),
+                        seconds);
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package engine;
+
+import chess.PackedMove;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size cache of search results keyed by Zobrist key (see {@link chess.ChessGame#positionKey()}), which any
+ * number of search threads can share without locking.
+ * <p>
+ * Each entry is two longs in one flat array: the key XOR the data, then the data. Threads read and write the two
+ * halves without synchronization, so an entry can be torn by a concurrent write; a torn entry no longer XORs back to
+ * its key and is treated as a miss. Entries are grouped into buckets of four that share a cache line, and a store
+ * replaces the entry in the bucket that is shallowest and oldest.
+ * <p>
+ * The data long holds, from the lowest bit: the best move without flags (16 bits, see {@link PackedMove}), the score
+ * (16 bits), the depth (8 bits), the bound (2 bits) and the age (8 bits). A probe returns the data long, or 0 on a
+ * miss, and the static accessors unpack it.
+ */
+public class TranspositionTable {
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    /**
+     * The score is exact
+     */
+    public static final int EXACT = 3;
+    /**
+     * The search failed high, so the score is a lower bound
+     */
+    public static final int LOWER = 1;
+    /**
+     * The search failed low, so the score is an upper bound
+     */
+    public static final int UPPER = 2;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int BUCKET_ENTRIES = 4;
+    // Longs per entry and per bucket
+    private static final int ENTRY_SIZE = 2;
+    private static final int BUCKET_SIZE = BUCKET_ENTRIES * ENTRY_SIZE;
+    private static final int BYTES_PER_BUCKET = BUCKET_SIZE * Long.BYTES;
+    // Buckets sampled to estimate the fill ratio
+    private static final int FILL_SAMPLE = 1000;
+
+    private final long[] slots;
+    private final int bucketMask;
+    private volatile int age = 0;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    /**
+     * Statistics for tuning the table size
+     *
+     * @param probes     Number of lookups
+     * @param hits       Number of lookups that found their position
+     * @param stores     Number of stores
+     * @param collisions Number of stores that evicted a different position from the current search
+     * @param fillRatio  Estimated fraction of entries in use by the current search
+     */
+    public record Stats(long probes, long hits, long stores, long collisions, double fillRatio) {
+        public double hitRate() {
+            return probes == 0 ? 0 : (double) hits / probes;
+        }
+
+        public double collisionRate() {
+            return stores == 0 ? 0 : (double) collisions / stores;
+        }
+    }
+
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_MB);
+    }
+
+    /**
+     * @param sizeMb Size of the table in megabytes, which is rounded down to a power of two
+     */
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb < 1) {
+            throw new IllegalArgumentException("Transposition table size must be at least 1 MB");
+        }
+        int buckets = Integer.highestOneBit((int) Math.min((long) sizeMb * 1024 * 1024 / BYTES_PER_BUCKET,
+                Integer.MAX_VALUE / BUCKET_SIZE));
+        slots = new long[buckets * BUCKET_SIZE];
+        bucketMask = buckets - 1;
+    }
+
+    /**
+     * @return Size of the table in bytes
+     */
+    public long sizeBytes() {
+        return (long) slots.length * Long.BYTES;
+    }
+
+    /**
+     * Start a new search, so that entries from earlier searches are replaced first
+     */
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    /**
+     * Remove every entry and reset the statistics
+     */
+    public void clear() {
+        Arrays.fill(slots, 0);
+        age = 0;
+        probes.reset();
+        hits.reset();
+        stores.reset();
+        collisions.reset();
+    }
+
+    /**
+     * @return Data of the entry for the position, or 0 if there is none
+     */
+    public long probe(long key) {
+        probes.increment();
+        int bucket = bucket(key);
+        for (int i = bucket; i < bucket + BUCKET_SIZE; i += ENTRY_SIZE) {
+            long data = (long) SLOTS.getOpaque(slots, i + 1);
+            if (data != 0 && ((long) SLOTS.getOpaque(slots, i) ^ data) == key) {
+                hits.increment();
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Store a search result for a position
+     *
+     * @param key   Zobrist key of the position
+     * @param move  Best move found, or {@link PackedMove#NONE}
+     * @param score Score from the point of view of the side to move
+     * @param depth Depth searched
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     * @param ply   Distance from the root, so that mate scores are stored relative to this position
+     */
+    public void store(long key, int move, int score, int depth, int bound, int ply) {
+        stores.increment();
+        int currentAge = age;
+        int bucket = bucket(key);
+        int replace = bucket;
+        int replaceValue = Integer.MAX_VALUE;
+        for (int i = bucket; i < bucket + BUCKET_SIZE; i += ENTRY_SIZE) {
+            long data = (long) SLOTS.getOpaque(slots, i + 1);
+            if (data == 0 || ((long) SLOTS.getOpaque(slots, i) ^ data) == key) {
+                replace = i;
+                if (data != 0 && move == PackedMove.NONE) {
+                    // Keep the best move of an earlier search of the same position
+                    move = move(data);
+                }
+                break;
+            }
+            // Prefer to replace entries that are shallow or left over from earlier searches
+            int value = depth(data) - 8 * ((currentAge - age(data)) & 0xFF);
+            if (value < replaceValue) {
+                replace = i;
+                replaceValue = value;
+            }
+        }
+        long old = (long) SLOTS.getOpaque(slots, replace + 1);
+        if (old != 0 && age(old) == currentAge && ((long) SLOTS.getOpaque(slots, replace) ^ old) != key) {
+            collisions.increment();
+        }
+
+        long data = PackedMove.withoutFlags(move) & 0xFFFFL
+                | (toStored(score, ply) & 0xFFFFL) << 16
+                | (long) Math.clamp(depth, 0, 0xFF) << 32
+                | (long) bound << 40
+                | (long) currentAge << 42;
+        SLOTS.setOpaque(slots, replace, key ^ data);
+        SLOTS.setOpaque(slots, replace + 1, data);
+    }
+
+    /**
+     * @return Statistics since the table was created or last cleared
+     */
+    public Stats stats() {
+        int sampled = Math.min(FILL_SAMPLE, bucketMask + 1);
+        int used = 0;
+        int currentAge = age;
+        for (int i = 0; i < sampled * BUCKET_SIZE; i += ENTRY_SIZE) {
+            long data = (long) SLOTS.getOpaque(slots, i + 1);
+            if (data != 0 && age(data) == currentAge) {
+                used++;
+            }
+        }
+        double fillRatio = (double) used / (sampled * BUCKET_ENTRIES);
+        return new Stats(probes.sum(), hits.sum(), stores.sum(), collisions.sum(), fillRatio);
+    }
+
+    /**
+     * @return Best move of an entry, or {@link PackedMove#NONE}
+     */
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    /**
+     * @param ply Distance from the root of the probing search, so that mate scores are relative to its root
+     * @return Score of an entry
+     */
+    public static int score(long data, int ply) {
+        int score = (short) (data >>> 16);
+        if (score > Engine.MATE - Engine.MAX_PLY) {
+            return score - ply;
+        } else if (score < -Engine.MATE + Engine.MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * @return Depth of an entry
+     */
+    public static int depth(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    /**
+     * @return Bound of an entry
+     */
+    public static int bound(long data) {
+        return (int) (data >>> 40) & 3;
+    }
+
+    private static int age(long data) {
+        return (int) (data >>> 42) & 0xFF;
+    }
+
+    private static int toStored(int score, int ply) {
+        if (score > Engine.MATE - Engine.MAX_PLY) {
+            return score + ply;
+        } else if (score < -Engine.MATE + Engine.MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private int bucket(long key) {
+        return ((int) (key >>> 32) & bucketMask) * BUCKET_SIZE;
+    }
+}
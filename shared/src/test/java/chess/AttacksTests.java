@@ -0,0 +1,84 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class AttacksTests {
+    /**
+     * Reference implementation that walks each ray one square at a time.
+     */
+    private static long walk(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int row = Bitboard.row(square) + direction[0];
+            int column = Bitboard.column(square) + direction[1];
+            while (1 <= row && row <= 8 && 1 <= column && column <= 8) {
+                long bit = 1L << Bitboard.square(row, column);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                row += direction[0];
+                column += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    @Test
+    @DisplayName("Sliding attack tables match ray walking")
+    public void slidingAttacks() {
+        int[][] rookDirections = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        int[][] bishopDirections = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        Random random = new Random(240);
+        for (int i = 0; i < 2000; i++) {
+            long occupied = random.nextLong() & random.nextLong();
+            for (int square = 0; square < 64; square++) {
+                Assertions.assertEquals(walk(square, occupied, rookDirections), Attacks.rook(square, occupied),
+                        "Wrong rook attacks from square " + square);
+                Assertions.assertEquals(walk(square, occupied, bishopDirections), Attacks.bishop(square, occupied),
+                        "Wrong bishop attacks from square " + square);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Leaper attack tables")
+    public void leaperAttacks() {
+        int d4 = Bitboard.square(4, 4);
+        Assertions.assertEquals(8, Long.bitCount(Attacks.knight(d4)));
+        Assertions.assertEquals(8, Long.bitCount(Attacks.king(d4)));
+        Assertions.assertEquals(2, Long.bitCount(Attacks.knight(Bitboard.square(1, 1))));
+        Assertions.assertEquals(3, Long.bitCount(Attacks.king(Bitboard.square(8, 8))));
+        Assertions.assertEquals(1L << Bitboard.square(3, 2), Attacks.pawn(ChessGame.TeamColor.WHITE,
+                Bitboard.square(2, 1)));
+        Assertions.assertEquals(1L << Bitboard.square(6, 7), Attacks.pawn(ChessGame.TeamColor.BLACK,
+                Bitboard.square(7, 8)));
+    }
+
+    @Test
+    @DisplayName("Square attack queries match the pieces' moves")
+    public void squareAttacked() {
+        RandomGames.play(new Random(240), 60, game -> {
+            ChessBoard board = game.getBoard();
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                for (int square = 0; square < 64; square++) {
+                    // With an opposing piece on the square, pawn captures onto it count as moves too
+                    ChessBoard target = new ChessBoard(board);
+                    ChessPosition position = Bitboard.position(square);
+                    target.setPiece(position, ChessPiece.of(color.opponent(), ChessPiece.PieceType.KNIGHT));
+                    boolean expected = false;
+                    for (ChessPosition attacker : target.teamPositions(color)) {
+                        expected |= target.getPiece(attacker).pieceMoves(target, attacker).stream()
+                                .anyMatch(move -> move.getEndPosition().equals(position));
+                    }
+                    Assertions.assertEquals(expected, target.isSquareAttacked(square, color),
+                            color + " attacking " + position.toAlgebraicNotation());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,197 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import websocket.commands.MakeMoveCommand;
+import websocket.messages.LoadGameMessage;
+
+import java.util.Collections;
+import java.util.Random;
+
+public class ChessJsonTests {
+    private static final Gson GSON = ChessJson.gson();
+
+    private static ChessGame playMoves(String... moves) {
+        ChessGame game = new ChessGame();
+        for (String move : moves) {
+            game.makeMoveUnchecked(ChessMove.fromCoordinateNotation(move));
+        }
+        return game;
+    }
+
+    private static void assertSameGame(ChessGame expected, ChessGame actual) {
+        Assertions.assertEquals(expected.toFen(), actual.toFen());
+        Assertions.assertEquals(expected.getHistory(), actual.getHistory());
+        Assertions.assertEquals(expected.getIsOver(), actual.getIsOver());
+        Assertions.assertEquals(expected.positionKey(), actual.positionKey());
+    }
+
+    /**
+     * @return The game in the reflective form written before the board was backed by bitboards
+     */
+    private static JsonObject gridForm(ChessGame game) {
+        JsonArray grid = new JsonArray();
+        JsonArray whitePositions = new JsonArray();
+        JsonArray blackPositions = new JsonArray();
+        for (int row = 1; row <= 8; row++) {
+            JsonArray cells = new JsonArray();
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = game.getBoard().getPiece(new ChessPosition(row, col));
+                cells.add(piece == null ? JsonNull.INSTANCE : new Gson().toJsonTree(piece));
+                if (piece != null) {
+                    JsonArray positions =
+                            piece.getTeamColor() == ChessGame.TeamColor.WHITE ? whitePositions : blackPositions;
+                    positions.add(new Gson().toJsonTree(new ChessPosition(row, col)));
+                }
+            }
+            grid.add(cells);
+        }
+        JsonObject board = new JsonObject();
+        board.add("grid", grid);
+        board.add("whitePositions", whitePositions);
+        board.add("blackPositions", blackPositions);
+
+        JsonObject json = new JsonObject();
+        json.addProperty("teamTurn", game.getTeamTurn().toString());
+        json.add("board", board);
+        json.add("history", new Gson().toJsonTree(game.getHistory()));
+        json.addProperty("isOver", game.getIsOver());
+        return json;
+    }
+
+    @Test
+    @DisplayName("Games round trip through the compact form")
+    public void gameRoundTrip() {
+        for (int seed = 0; seed < 20; seed++) {
+            ChessGame game = RandomGames.play(new Random(seed), 2 * seed + 1);
+            game.setIsOver(seed % 3 == 0);
+            String json = GSON.toJson(game);
+            assertSameGame(game, GSON.fromJson(json, ChessGame.class));
+        }
+        ChessGame game = GSON.fromJson(GSON.toJson(playMoves("e2e4")), ChessGame.class);
+        Assertions.assertDoesNotThrow(() -> game.makeMove(ChessMove.fromCoordinateNotation("e7e5")));
+    }
+
+    @Test
+    @DisplayName("Loaded games remember repeated positions")
+    public void repetitionsRoundTrip() {
+        ChessGame game = playMoves("g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6", "f3g1", "f6g8");
+        ChessGame loaded = GSON.fromJson(GSON.toJson(game), ChessGame.class);
+        Assertions.assertEquals(2, loaded.getRepetitions());
+        Assertions.assertEquals(GameStatus.THREEFOLD_REPETITION, loaded.status());
+        loaded.makeMoveUnchecked(ChessMove.fromCoordinateNotation("g1f3"));
+        Assertions.assertEquals(2, loaded.getRepetitions());
+    }
+
+    @Test
+    @DisplayName("Compact form")
+    public void compactForm() {
+        String json = GSON.toJson(playMoves("e2e4", "c7c5"));
+        Assertions.assertEquals("{\"version\":1,"
+                + "\"fen\":\"rnbqkbnr/pp1ppppp/8/2p5/4P3/8/PPPP1PPP/RNBQKBNR w KQkq c6 0 2\","
+                + "\"moves\":[\"e2e4\",\"c7c5\"],\"isOver\":false}", json);
+        Assertions.assertTrue(new Gson().toJson(playMoves("e2e4", "c7c5")).length() > 2 * json.length());
+    }
+
+    @Test
+    @DisplayName("Moves are written in coordinate notation and read in either form")
+    public void moves() {
+        ChessMove promotion = ChessMove.fromCoordinateNotation("e7e8n");
+        Assertions.assertEquals(new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 5),
+                ChessPiece.PieceType.KNIGHT), promotion);
+        Assertions.assertEquals("\"e7e8n\"", GSON.toJson(promotion));
+        Assertions.assertEquals(promotion, GSON.fromJson("\"e7e8n\"", ChessMove.class));
+        Assertions.assertEquals(promotion, GSON.fromJson(new Gson().toJson(promotion), ChessMove.class));
+
+        ChessMove move = ChessMove.fromCoordinateNotation("g1f3");
+        MakeMoveCommand command = new MakeMoveCommand("token", 1, move);
+        Assertions.assertEquals(move, GSON.fromJson(new Gson().toJson(command), MakeMoveCommand.class).move);
+        Assertions.assertEquals(move, GSON.fromJson(GSON.toJson(command), MakeMoveCommand.class).move);
+
+        Assertions.assertThrows(JsonParseException.class, () -> GSON.fromJson("\"e7e9\"", ChessMove.class));
+        Assertions.assertThrows(JsonParseException.class, () -> GSON.fromJson("\"e7e8k\"", ChessMove.class));
+    }
+
+    @Test
+    @DisplayName("Boards are written as FEN piece placement")
+    public void boards() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        Assertions.assertEquals("\"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR\"", GSON.toJson(board));
+        Assertions.assertEquals(board, GSON.fromJson(GSON.toJson(board), ChessBoard.class));
+        Assertions.assertEquals(board, GSON.fromJson(new Gson().toJson(board), ChessBoard.class));
+    }
+
+    @Test
+    @DisplayName("Oversized piece grids are rejected")
+    public void oversizedGrids() {
+        String wideRow = "[" + String.join(",", Collections.nCopies(9, "null")) + "]";
+        Assertions.assertThrows(JsonParseException.class,
+                () -> GSON.fromJson("{\"grid\":[" + wideRow + "]}", ChessBoard.class));
+        String tall = String.join(",", Collections.nCopies(9, "[]"));
+        JsonParseException e = Assertions.assertThrows(JsonParseException.class,
+                () -> GSON.fromJson("{\"grid\":[" + tall + "]}", ChessBoard.class));
+        Assertions.assertTrue(e.getMessage().contains("$.grid"), e.getMessage());
+    }
+
+    @Test
+    @DisplayName("Games stored by reflective Gson still load")
+    public void reflectiveGames() {
+        for (int seed = 0; seed < 10; seed++) {
+            ChessGame game = RandomGames.play(new Random(seed), 3 * seed);
+            assertSameGame(game, GSON.fromJson(new Gson().toJson(game), ChessGame.class));
+        }
+    }
+
+    @Test
+    @DisplayName("Games stored with a piece grid are rebuilt from their history")
+    public void gridGames() {
+        // The king and rook have moved and returned, and black's last move allows en passant
+        ChessGame game = playMoves("e2e4", "a7a6", "e1e2", "a6a5", "e2e1", "a5a4", "b2b4", "a4b3", "g1f3", "d7d5",
+                "e4e5", "f7f5");
+        game.setIsOver(true);
+        ChessGame loaded = GSON.fromJson(gridForm(game), ChessGame.class);
+        assertSameGame(game, loaded);
+        Assertions.assertEquals(ChessGame.BLACK_KINGSIDE | ChessGame.BLACK_QUEENSIDE, loaded.getCastlingRights());
+        Assertions.assertEquals(Bitboard.square(6, 6), loaded.getEnPassantSquare());
+
+        // A board set up without history gets the castling rights its kings and rooks allow
+        ChessGame setUp = new ChessGame();
+        setUp.setBoard(ChessBoard.fromFen("r3k3/8/8/8/8/8/8/4K2R"));
+        setUp.setTeamTurn(ChessGame.TeamColor.BLACK);
+        loaded = GSON.fromJson(gridForm(setUp), ChessGame.class);
+        Assertions.assertEquals(setUp.getBoard(), loaded.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, loaded.getTeamTurn());
+        Assertions.assertEquals(ChessGame.WHITE_KINGSIDE | ChessGame.BLACK_QUEENSIDE, loaded.getCastlingRights());
+    }
+
+    @Test
+    @DisplayName("Load game messages use the compact form")
+    public void loadGameMessage() {
+        ChessGame game = playMoves("d2d4", "g8f6");
+        String json = GSON.toJson(new LoadGameMessage(game));
+        Assertions.assertTrue(json.contains("\"fen\""));
+        assertSameGame(game, GSON.fromJson(json, LoadGameMessage.class).getGame());
+    }
+
+    @Test
+    @DisplayName("Invalid games are rejected")
+    public void invalidGames() {
+        Assertions.assertThrows(JsonParseException.class,
+                () -> GSON.fromJson("{\"version\":2,\"fen\":\"" + Fen.STARTING_POSITION + "\"}", ChessGame.class));
+        Assertions.assertThrows(JsonParseException.class,
+                () -> GSON.fromJson("{\"version\":1,\"moves\":[]}", ChessGame.class));
+        Assertions.assertThrows(JsonParseException.class,
+                () -> GSON.fromJson("{\"version\":1,\"fen\":\"8/8 w - -\"}", ChessGame.class));
+        Assertions.assertThrows(JsonParseException.class,
+                () -> GSON.fromJson("{\"teamTurn\":\"WHITE\",\"isOver\":false}", ChessGame.class));
+        Assertions.assertThrows(JsonParseException.class,
+                () -> GSON.fromJson("{\"teamTurn\":\"GREEN\",\"board\":\"8/8/8/8/8/8/8/8\"}", ChessGame.class));
+    }
+}
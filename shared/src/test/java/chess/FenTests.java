@@ -0,0 +1,184 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class FenTests {
+    private static final List<String> POSITIONS = List.of(
+            Fen.STARTING_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "8/8/8/8/8/8/8/4K2k b - - 99 140"
+    );
+
+    private static void assertSamePosition(ChessGame expected, ChessGame actual) {
+        Assertions.assertEquals(expected.getBoard(), actual.getBoard(), "Board differs");
+        Assertions.assertEquals(expected.getTeamTurn(), actual.getTeamTurn(), "Turn differs");
+        Assertions.assertEquals(expected.getCastlingRights(), actual.getCastlingRights(), "Castling differs");
+        Assertions.assertEquals(expected.getEnPassantSquare(), actual.getEnPassantSquare(), "En passant differs");
+        Assertions.assertEquals(expected.getHalfmoveClock(), actual.getHalfmoveClock());
+        Assertions.assertEquals(expected.getFullmoveNumber(), actual.getFullmoveNumber());
+        Assertions.assertEquals(expected.positionKey(), actual.positionKey(), "Key differs");
+    }
+
+    /**
+     * @return Games reached by playing random legal moves from the starting position, one per position
+     */
+    private static List<ChessGame> randomGames(long seed) {
+        Random random = new Random(seed);
+        List<ChessGame> games = new ArrayList<>();
+        for (int gameNumber = 0; gameNumber < 10; gameNumber++) {
+            RandomGames.play(random, 100, game -> games.add(new ChessGame(game)));
+        }
+        return games;
+    }
+
+    @Test
+    @DisplayName("Starting position")
+    public void startingPosition() {
+        Assertions.assertEquals(Fen.STARTING_POSITION, new ChessGame().toFen());
+        assertSamePosition(new ChessGame(), ChessGame.fromFen(Fen.STARTING_POSITION));
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR", new ChessGame().getBoard().toFen());
+    }
+
+    @Test
+    @DisplayName("FEN round trip")
+    public void fenRoundTrip() {
+        for (String fen : POSITIONS) {
+            Assertions.assertEquals(fen, ChessGame.fromFen(fen).toFen());
+        }
+        for (ChessGame game : randomGames(14)) {
+            assertSamePosition(game, ChessGame.fromFen(game.toFen()));
+        }
+    }
+
+    @Test
+    @DisplayName("Move counters are optional")
+    public void optionalCounters() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 b -   -");
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        Assertions.assertEquals(1, game.getFullmoveNumber());
+    }
+
+    @Test
+    @DisplayName("Board round trip for passoff boards")
+    public void passoffBoards() {
+        ChessBoard board = TestUtilities.loadBoard("""
+                | | | | | | | | |
+                | | | | | | | | |
+                | | |n| | | | | |
+                | | | |Q| | |p| |
+                | | | | | | | | |
+                | |r| | | | | |B|
+                | | | |K| | | | |
+                |R| | | | |k| | |
+                """);
+        Assertions.assertEquals("8/8/2n5/3Q2p1/8/1r5B/3K4/R4k2", board.toFen());
+        Assertions.assertEquals(board, ChessBoard.fromFen(board.toFen()));
+
+        ChessBoard standard = new ChessBoard();
+        standard.resetBoard();
+        Assertions.assertEquals(standard, ChessBoard.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR"));
+    }
+
+    @Test
+    @DisplayName("Invalid FEN is rejected")
+    public void invalidFen() {
+        String[] invalid = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq -",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNRR w KQkq -",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -",
+                "rnbqkbnr/ppppxppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq -",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkx -",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq i3",
+                // En passant squares on the wrong rank, or without the pawn that just moved past them
+                "4k3/8/8/3p4/4P3/8/8/4K3 w - d5 0 1",
+                "4k3/8/8/3pP3/8/8/8/4K3 w - d3 0 1",
+                "4k3/8/8/4P3/8/8/8/4K3 w - d6 0 1",
+                "4k3/8/8/3PP3/8/8/8/4K3 w - d6 0 1",
+                "4k3/8/3n4/3pP3/8/8/8/4K3 w - d6 0 1",
+                "4k3/8/8/8/3Pp3/8/8/4K3 b - d6 0 1",
+                "4k3/8/8/8/4p3/8/8/4K3 b - d3 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - -1 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 one",
+        };
+        for (String fen : invalid) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), fen);
+        }
+    }
+
+    @Test
+    @DisplayName("Binary codec round trip")
+    public void codecRoundTrip() {
+        for (String fen : POSITIONS) {
+            ChessGame game = ChessGame.fromFen(fen);
+            byte[] encoded = PositionCodec.encode(game);
+            Assertions.assertTrue(encoded.length <= 40, fen + " took " + encoded.length + " bytes");
+            assertSamePosition(game, PositionCodec.decode(encoded));
+        }
+        for (ChessGame game : randomGames(41)) {
+            assertSamePosition(game, PositionCodec.decode(PositionCodec.encode(game)));
+        }
+        Assertions.assertEquals(29, PositionCodec.encode(new ChessGame()).length);
+    }
+
+    @Test
+    @DisplayName("Invalid binary encodings are rejected")
+    public void invalidEncoding() {
+        byte[] encoded = PositionCodec.encode(new ChessGame());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> PositionCodec.decode(new byte[0]));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> PositionCodec.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> PositionCodec.decode(Arrays.copyOf(encoded, encoded.length + 1)));
+
+        byte[] wrongVersion = encoded.clone();
+        wrongVersion[0] = (byte) (PositionCodec.VERSION + 1);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(wrongVersion));
+
+        // An en passant square on d6, the low byte of the state, with no black pawn on d5 and then with a knight on it
+        byte[] noPawn = encoded.clone();
+        noPawn[noPawn.length - 3] |= 1 << 5 | 3 << 6;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(noPawn));
+        byte[] occupied = PositionCodec.encode(ChessGame.fromFen("4k3/8/3n4/3pP3/8/8/8/4K3 w - - 0 1"));
+        occupied[occupied.length - 3] |= 1 << 5 | 3 << 6;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(occupied));
+
+        // Clocks that are negative, too large for an int, zero or longer than 5 bytes
+        int clocks = encoded.length - 2;
+        int[][] invalidClocks = {
+                {0xFF, 0xFF, 0xFF, 0xFF, 0x0F, 0x01},
+                {0x00, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F},
+                {0x00, 0x80, 0x80, 0x80, 0x80, 0x08},
+                {0x00, 0x00},
+                {0x00, 0x81, 0x80, 0x80, 0x80, 0x80, 0x00},
+        };
+        for (int[] tail : invalidClocks) {
+            byte[] bytes = Arrays.copyOf(encoded, clocks + tail.length);
+            for (int i = 0; i < tail.length; i++) {
+                bytes[clocks + i] = (byte) tail[i];
+            }
+            Assertions.assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(bytes),
+                    Arrays.toString(tail));
+        }
+        ChessGame longGame = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 " + Integer.MAX_VALUE);
+        Assertions.assertEquals(Integer.MAX_VALUE,
+                PositionCodec.decode(PositionCodec.encode(longGame)).getFullmoveNumber());
+    }
+}
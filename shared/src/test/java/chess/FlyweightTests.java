@@ -0,0 +1,53 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class FlyweightTests {
+
+    @Test
+    @DisplayName("Factories return shared instances equal to constructed ones")
+    public void sharedInstances() {
+        Assertions.assertSame(ChessPosition.of(3, 4), ChessPosition.of(3, 4));
+        Assertions.assertSame(ChessPosition.of(3, 4), ChessPosition.of(2, 3).offsetBy(1, 1));
+        Assertions.assertEquals(new ChessPosition(3, 4), ChessPosition.of(3, 4));
+
+        ChessPiece knight = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+        Assertions.assertSame(knight, ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        Assertions.assertEquals(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT), knight);
+        Assertions.assertSame(knight, new ChessGame().getBoard().getPiece(new ChessPosition(8, 2)));
+
+        ChessMove promotion = ChessMove.of(new ChessPosition(7, 1), new ChessPosition(8, 1),
+                ChessPiece.PieceType.ROOK);
+        Assertions.assertSame(promotion, ChessMove.of(ChessPosition.of(7, 1), ChessPosition.of(8, 1),
+                ChessPiece.PieceType.ROOK));
+        Assertions.assertEquals(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1),
+                ChessPiece.PieceType.ROOK), promotion);
+        Assertions.assertNotSame(promotion, ChessMove.of(ChessPosition.of(7, 1), ChessPosition.of(8, 1),
+                ChessPiece.PieceType.QUEEN));
+    }
+
+    @Test
+    @DisplayName("Positions off the board are not cached")
+    public void offBoard() {
+        ChessPosition offBoard = ChessPosition.of(0, 9);
+        Assertions.assertFalse(offBoard.isValid());
+        Assertions.assertEquals(new ChessPosition(0, 9), offBoard);
+        Assertions.assertEquals(new ChessPosition(9, 1), ChessPosition.of(8, 1).offsetBy(1, 0));
+        ChessMove move = ChessMove.of(ChessPosition.of(8, 1), offBoard, null);
+        Assertions.assertEquals(offBoard, move.getEndPosition());
+    }
+
+    @Test
+    @DisplayName("Generated moves are shared instances")
+    public void generatedMoves() {
+        ChessGame game = new ChessGame();
+        for (ChessMove move : LegalMoveGenerator.legalMoves(game)) {
+            Assertions.assertSame(move, ChessMove.of(move.getStartPosition(), move.getEndPosition(),
+                    move.getPromotionPiece()));
+            Assertions.assertSame(move.getStartPosition(), ChessPosition.of(move.getStartPosition().getRow(),
+                    move.getStartPosition().getColumn()));
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+public class GameStatusTests {
+
+    private static ChessGame load(String board, ChessGame.TeamColor turn) {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard(board));
+        game.setTeamTurn(turn);
+        return game;
+    }
+
+    private static ChessMove move(int startRow, int startColumn, int endRow, int endColumn) {
+        return new ChessMove(new ChessPosition(startRow, startColumn), new ChessPosition(endRow, endColumn), null);
+    }
+
+    @Test
+    @DisplayName("Ongoing, check and checkmate")
+    public void checkAndCheckmate() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(GameStatus.ONGOING, game.status());
+        game.makeMove(move(2, 6, 3, 6));
+        game.makeMove(move(7, 5, 5, 5));
+        game.makeMove(move(2, 7, 4, 7));
+        Assertions.assertEquals(GameStatus.ONGOING, game.status());
+        game.makeMove(move(8, 4, 4, 8));
+        Assertions.assertEquals(GameStatus.CHECKMATE, game.status());
+        Assertions.assertTrue(game.status().isOver());
+        Assertions.assertFalse(game.status().isDraw());
+
+        game.unmakeMove();
+        game.makeMove(move(8, 6, 4, 2));
+        Assertions.assertEquals(GameStatus.ONGOING, game.status());
+        game.makeMove(move(2, 3, 3, 3));
+        game.makeMove(move(4, 2, 5, 1));
+        game.makeMove(move(1, 5, 2, 6));
+        game.makeMove(move(8, 4, 4, 8));
+        Assertions.assertEquals(GameStatus.CHECK, game.status());
+    }
+
+    @Test
+    @DisplayName("Stalemate")
+    public void stalemate() {
+        ChessGame game = load("""
+                |k| | | | | | | |
+                | | |Q| | | | | |
+                | |K| | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(GameStatus.STALEMATE, game.status());
+        Assertions.assertTrue(game.status().isDraw());
+        Assertions.assertTrue(game.isInStalemate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Insufficient material")
+    public void insufficientMaterial() {
+        Assertions.assertEquals(GameStatus.INSUFFICIENT_MATERIAL, load("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | |N| | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                """, ChessGame.TeamColor.WHITE).status());
+        // Bishops on the same color of square
+        Assertions.assertEquals(GameStatus.INSUFFICIENT_MATERIAL, load("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | |b| | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |B| | | |K| | | |
+                """, ChessGame.TeamColor.WHITE).status());
+        // Bishops on opposite colors, two knights, or a pawn can still mate
+        Assertions.assertEquals(GameStatus.ONGOING, load("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | |b| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |B| | | |K| | | |
+                """, ChessGame.TeamColor.WHITE).status());
+        Assertions.assertEquals(GameStatus.ONGOING, load("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | |N| | |
+                | | | | | | | | |
+                | |N| | |K| | | |
+                """, ChessGame.TeamColor.WHITE).status());
+        Assertions.assertEquals(GameStatus.ONGOING, load("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | |P| |
+                | | | | |K| | | |
+                """, ChessGame.TeamColor.WHITE).status());
+    }
+
+    @Test
+    @DisplayName("Fifty and seventy-five move rules")
+    public void moveRules() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 99 80");
+        Assertions.assertEquals(GameStatus.ONGOING, game.status());
+        game.makeMoveUnchecked(move(1, 1, 2, 1));
+        Assertions.assertEquals(GameStatus.FIFTY_MOVE_RULE, game.status());
+        Assertions.assertTrue(game.status().isDrawClaimable());
+        Assertions.assertFalse(game.status().isOver());
+
+        game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 149 80");
+        Assertions.assertEquals(GameStatus.FIFTY_MOVE_RULE, game.status());
+        game.makeMoveUnchecked(move(1, 1, 2, 1));
+        Assertions.assertEquals(GameStatus.SEVENTY_FIVE_MOVE_RULE, game.status());
+        game.unmakeMove();
+        Assertions.assertEquals(GameStatus.FIFTY_MOVE_RULE, game.status());
+
+        // Checkmate on the last move still counts
+        game = ChessGame.fromFen("4k3/R7/4K3/8/8/8/8/8 w - - 149 80");
+        game.makeMoveUnchecked(move(7, 1, 8, 1));
+        Assertions.assertEquals(GameStatus.CHECKMATE, game.status());
+    }
+
+    @Test
+    @DisplayName("Threefold and fivefold repetition")
+    public void repetition() {
+        ChessGame game = new ChessGame();
+        int[][] shuffle = {{1, 7, 3, 6}, {8, 7, 6, 6}, {3, 6, 1, 7}, {6, 6, 8, 7}};
+        for (int i = 1; i <= 16; i++) {
+            int[] m = shuffle[(i - 1) % shuffle.length];
+            game.makeMoveUnchecked(move(m[0], m[1], m[2], m[3]));
+            // Every position comes back four halfmoves later
+            Assertions.assertEquals(i / 4, game.getRepetitions(), "After " + i + " halfmoves");
+            GameStatus expected = i < 8 ? GameStatus.ONGOING
+                    : i < 16 ? GameStatus.THREEFOLD_REPETITION : GameStatus.FIVEFOLD_REPETITION;
+            Assertions.assertEquals(expected, game.status(), "After " + i + " halfmoves");
+        }
+        Assertions.assertTrue(game.status().isOver());
+        Assertions.assertEquals(4, new ChessGame(game).getRepetitions());
+        game.unmakeMove();
+        Assertions.assertEquals(GameStatus.THREEFOLD_REPETITION, game.status());
+
+        // A capture or pawn move starts over
+        game.makeMoveUnchecked(move(2, 5, 4, 5));
+        Assertions.assertEquals(0, game.getRepetitions());
+    }
+
+    @Test
+    @DisplayName("Positions with different castling rights are not repetitions")
+    public void repetitionNeedsSameRights() {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        int[][] shuffle = {{1, 5, 1, 6}, {8, 5, 8, 6}, {1, 6, 1, 5}, {8, 6, 8, 5}};
+        for (int i = 1; i <= 8; i++) {
+            int[] m = shuffle[(i - 1) % shuffle.length];
+            game.makeMoveUnchecked(move(m[0], m[1], m[2], m[3]));
+        }
+        // The kings are back for the third time, but the first time they could still castle
+        Assertions.assertEquals(1, game.getRepetitions());
+        Assertions.assertEquals(GameStatus.ONGOING, game.status());
+    }
+
+    @Test
+    @DisplayName("Status follows the position after the board changes")
+    public void cacheFollowsPosition() {
+        ChessGame game = load("""
+                |k| | | | | | | |
+                | | |Q| | | | | |
+                | |K| | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(GameStatus.STALEMATE, game.status());
+        game.getBoard().setPiece(new ChessPosition(7, 3), null);
+        Assertions.assertEquals(GameStatus.INSUFFICIENT_MATERIAL, game.status());
+    }
+}
@@ -0,0 +1,117 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+public class LegalMoveGeneratorTests {
+
+    /**
+     * Legal moves found by trying every potential move and testing for check afterward
+     */
+    private static HashSet<ChessMove> referenceMoves(ChessGame game) {
+        HashSet<ChessMove> moves = new HashSet<>();
+        ChessGame.TeamColor color = game.getTeamTurn();
+        for (ChessPosition position : game.getBoard().teamPositions(color)) {
+            for (ChessMove move : game.potentialMoves(position)) {
+                if (game.leavesKingSafe(move, color)) {
+                    moves.add(move);
+                }
+            }
+            ChessPiece piece = game.getBoard().getPiece(position);
+            for (ChessMove move : MoveCalculator.specialMoves(game, piece, position)) {
+                // Castling queenside also requires the square next to the rook to be empty
+                boolean queenside = piece.getPieceType() == ChessPiece.PieceType.KING
+                        && move.getEndPosition().getColumn() == 3;
+                if (!queenside || game.getBoard().getPiece(new ChessPosition(position.getRow(), 2)) == null) {
+                    moves.add(move);
+                }
+            }
+        }
+        return moves;
+    }
+
+    @Test
+    @DisplayName("Generated moves match trial-and-check filtering over random games")
+    public void matchesReference() {
+        Random random = new Random(240);
+        for (int gameNumber = 0; gameNumber < 30; gameNumber++) {
+            RandomGames.play(random, 120, game -> {
+                ArrayList<ChessMove> moves = new ArrayList<>(LegalMoveGenerator.legalMoves(game));
+                Assertions.assertEquals(referenceMoves(game), new HashSet<>(moves),
+                        "Wrong moves after " + game.getHistory());
+                Assertions.assertEquals(moves.size(), new HashSet<>(moves).size(), "Duplicate moves");
+            });
+        }
+    }
+
+    @Test
+    @DisplayName("Pinned pieces only move along the pin")
+    public void pinnedPieces() {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                | | | | |r| | |k|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | |b| | |R| | | |
+                | | | | | | | | |
+                | | | |N| | | | |
+                | | | | |K| | | |
+                """));
+        Assertions.assertTrue(game.validMoves(new ChessPosition(2, 4)).isEmpty(), "Pinned knight moved");
+        Assertions.assertEquals(6, game.validMoves(new ChessPosition(4, 5)).size(), "Pinned rook left the file");
+    }
+
+    @Test
+    @DisplayName("En passant cannot expose the king along its rank")
+    public void enPassantDiscoveredCheck() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                | | | | | | | |k|
+                | | | |p| | | | |
+                | | | | | | | | |
+                |K| | | |P| | |r|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """));
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        ChessMove enPassant = new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 4), null);
+        Assertions.assertFalse(game.validMoves(new ChessPosition(5, 5)).contains(enPassant));
+    }
+
+    @Test
+    @DisplayName("Packed moves match the ChessMove API and carry correct flags")
+    public void packedMoves() {
+        int[] buffer = new int[LegalMoveGenerator.MAX_MOVES];
+        RandomGames.play(new Random(240), 200, game -> {
+            int count = LegalMoveGenerator.generate(game, buffer);
+            HashSet<ChessMove> packed = new HashSet<>();
+            Bitboard bitboard = game.getBoard().getBitboard();
+            for (int i = 0; i < count; i++) {
+                int move = buffer[i];
+                packed.add(PackedMove.toChessMove(move));
+                boolean enPassant = PackedMove.to(move) == game.getEnPassantSquare()
+                        && Bitboard.type(bitboard.pieceAt(PackedMove.from(move))) == ChessPiece.PieceType.PAWN;
+                Assertions.assertEquals(bitboard.pieceAt(PackedMove.to(move)) != Bitboard.NO_PIECE || enPassant,
+                        PackedMove.is(move, PackedMove.CAPTURE));
+                Assertions.assertEquals(enPassant, PackedMove.is(move, PackedMove.EN_PASSANT));
+                Assertions.assertTrue(LegalMoveGenerator.isLegal(game, PackedMove.toChessMove(move)));
+            }
+            Assertions.assertEquals(new HashSet<>(LegalMoveGenerator.legalMoves(game)), packed);
+            Assertions.assertEquals(count, packed.size());
+        });
+        Assertions.assertFalse(LegalMoveGenerator.isLegal(new ChessGame(),
+                new ChessMove(new ChessPosition(2, 5), new ChessPosition(5, 5), null)));
+        Assertions.assertFalse(LegalMoveGenerator.isLegal(new ChessGame(),
+                new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null)));
+    }
+}
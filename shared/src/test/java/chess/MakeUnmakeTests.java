@@ -0,0 +1,89 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class MakeUnmakeTests {
+
+    @Test
+    @DisplayName("Unmaking every move of random games restores the starting position")
+    public void randomGamesRoundTrip() {
+        Random random = new Random(240);
+        for (int gameNumber = 0; gameNumber < 20; gameNumber++) {
+            ArrayList<ChessGame> snapshots = new ArrayList<>();
+            ChessGame game = RandomGames.play(random, 80, played -> snapshots.add(new ChessGame(played)));
+            ChessBoard startBoard = new ChessBoard(snapshots.getFirst().getBoard());
+            snapshots.removeLast();
+            while (!snapshots.isEmpty()) {
+                game.unmakeMove();
+                ChessGame expected = snapshots.removeLast();
+                Assertions.assertEquals(expected.getBoard(), game.getBoard(), "Board not restored");
+                Assertions.assertEquals(expected.getTeamTurn(), game.getTeamTurn(), "Turn not restored");
+                Assertions.assertEquals(expected.getCastlingRights(), game.getCastlingRights());
+                Assertions.assertEquals(expected.getEnPassantSquare(), game.getEnPassantSquare());
+                Assertions.assertEquals(expected.getHalfmoveClock(), game.getHalfmoveClock());
+                Assertions.assertEquals(expected.getFullmoveNumber(), game.getFullmoveNumber());
+                Assertions.assertEquals(expected.getHistory(), game.getHistory(), "History not restored");
+                Assertions.assertEquals(expected.positionKey(), game.positionKey(), "Key not restored");
+            }
+            Assertions.assertEquals(startBoard, game.getBoard());
+        }
+    }
+
+    @Test
+    @DisplayName("Move counters")
+    public void moveCounters() {
+        ChessGame game = new ChessGame();
+        game.makeMoveUnchecked(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        Assertions.assertEquals(1, game.getHalfmoveClock());
+        Assertions.assertEquals(1, game.getFullmoveNumber());
+        game.makeMoveUnchecked(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        Assertions.assertEquals(2, game.getHalfmoveClock());
+        Assertions.assertEquals(2, game.getFullmoveNumber());
+        game.makeMoveUnchecked(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        Assertions.assertEquals(2, game.getFullmoveNumber());
+        game.unmakeMove();
+        game.unmakeMove();
+        Assertions.assertEquals(1, game.getHalfmoveClock());
+        Assertions.assertEquals(1, game.getFullmoveNumber());
+    }
+
+    @Test
+    @DisplayName("Unmake special moves")
+    public void unmakeSpecialMoves() {
+        ChessGame game = new ChessGame();
+        game.setBoard(passoff.chess.TestUtilities.loadBoard("""
+                |r| | | |k| | |r|
+                | |P| | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | |p| | | | |
+                | | | | | | | | |
+                | | | | |P| | | |
+                |R| | | |K| | |R|
+                """));
+        ChessBoard before = new ChessBoard(game.getBoard());
+        ChessMove[] moves = {
+                new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null),
+                new ChessMove(new ChessPosition(4, 4), new ChessPosition(3, 5), null),
+                new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 3), null),
+                new ChessMove(new ChessPosition(8, 5), new ChessPosition(8, 7), null),
+                new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT),
+        };
+        for (ChessMove move : moves) {
+            game.makeMoveUnchecked(move);
+        }
+        Assertions.assertEquals(0, game.getCastlingRights());
+        for (int i = 0; i < moves.length; i++) {
+            game.unmakeMove();
+        }
+        Assertions.assertEquals(before, game.getBoard());
+        Assertions.assertEquals(ChessGame.ALL_CASTLING_RIGHTS, game.getCastlingRights());
+        Assertions.assertThrows(IllegalStateException.class, game::unmakeMove);
+    }
+}
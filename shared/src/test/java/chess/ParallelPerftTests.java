@@ -0,0 +1,62 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public class ParallelPerftTests {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+    @Test
+    @DisplayName("Counts match the sequential perft")
+    public void counts() {
+        try (ParallelPerft perft = new ParallelPerft(4, 0)) {
+            Assertions.assertEquals(1, perft.perft(new ChessGame(), 0));
+            Assertions.assertEquals(197281, perft.perft(new ChessGame(), 4));
+            Assertions.assertEquals(97862, perft.perft(ChessGame.fromFen(KIWIPETE), 3));
+        }
+    }
+
+    @Test
+    @DisplayName("Root moves are split again at the second ply")
+    public void split() {
+        try (ParallelPerft perft = new ParallelPerft(4, 0)) {
+            Assertions.assertEquals(674624, perft.perft(ChessGame.fromFen(POSITION_3), ParallelPerft.SPLIT_DEPTH));
+        }
+    }
+
+    @Test
+    @DisplayName("Counts are the same with a shared hash")
+    public void hash() {
+        try (ParallelPerft perft = new ParallelPerft(4, 1)) {
+            Assertions.assertEquals(674624, perft.perft(ChessGame.fromFen(POSITION_3), 5));
+            Assertions.assertEquals(197281, perft.perft(new ChessGame(), 4));
+            // Again, now that the hash is full of counts from the first runs
+            Assertions.assertEquals(674624, perft.perft(ChessGame.fromFen(POSITION_3), 5));
+            Assertions.assertEquals(2039, perft.perft(ChessGame.fromFen(KIWIPETE), 2));
+        }
+    }
+
+    @Test
+    @DisplayName("Divide matches the sequential divide and leaves the game unchanged")
+    public void divide() {
+        try (ParallelPerft perft = new ParallelPerft(2, 1)) {
+            ChessGame game = ChessGame.fromFen(KIWIPETE);
+            Map<ChessMove, Long> counts = perft.divide(game, 3);
+            Assertions.assertEquals(KIWIPETE, game.toFen());
+            Assertions.assertEquals(Perft.divide(game, 3), counts);
+            Assertions.assertEquals(48, counts.size());
+            Assertions.assertEquals(97862, counts.values().stream().mapToLong(Long::longValue).sum());
+        }
+    }
+
+    @Test
+    @DisplayName("Invalid arguments")
+    public void invalid() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ParallelPerft(0, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ParallelPerft(1, -1));
+    }
+}
@@ -0,0 +1,192 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+/**
+ * Perft node counts for standard test positions. Shallow depths run with every build; the deep suite is opt-in with
+ * {@code mvn -pl shared test -Pperft}.
+ */
+public class PerftTests {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    private static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    private static final String POSITION_5 = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+    private static final String POSITION_6 = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+    private static final String CASTLING = "r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1";
+    private static final String EN_PASSANT_CHECK = "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1";
+
+    /**
+     * Count leaf nodes by trying every potential move from MoveCalculator, keeping those that leave the king safe,
+     * and adding MoveCalculator's special moves. This exercises the castling and en passant rules in
+     * MoveCalculator.specialMoves, independently of LegalMoveGenerator.
+     */
+    private static long referencePerft(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        ChessGame.TeamColor color = game.getTeamTurn();
+        long nodes = 0;
+        for (ChessPosition position : game.getBoard().teamPositions(color)) {
+            ChessPiece piece = game.getBoard().getPiece(position);
+            for (ChessMove move : game.potentialMoves(position)) {
+                if (game.leavesKingSafe(move, color)) {
+                    game.makeMoveUnchecked(move);
+                    nodes += referencePerft(game, depth - 1);
+                    game.unmakeMove();
+                }
+            }
+            for (ChessMove move : MoveCalculator.specialMoves(game, piece, position)) {
+                game.makeMoveUnchecked(move);
+                nodes += referencePerft(game, depth - 1);
+                game.unmakeMove();
+            }
+        }
+        return nodes;
+    }
+
+    private static void assertPerft(ChessGame game, long... expected) {
+        for (int depth = 1; depth <= expected.length; depth++) {
+            Assertions.assertEquals(expected[depth - 1], Perft.perft(game, depth),
+                    "Wrong node count at depth " + depth);
+        }
+    }
+
+    private static void assumeDeep() {
+        Assumptions.assumeTrue(Boolean.getBoolean("perft.deep"), "Deep perft runs with -Pperft");
+    }
+
+    @Test
+    @DisplayName("Starting position")
+    public void startingPosition() {
+        assertPerft(new ChessGame(), 20, 400, 8902, 197281);
+    }
+
+    @Test
+    @DisplayName("Kiwipete")
+    public void kiwipete() {
+        assertPerft(ChessGame.fromFen(KIWIPETE), 48, 2039, 97862);
+    }
+
+    @Test
+    @DisplayName("Position 3")
+    public void position3() {
+        assertPerft(ChessGame.fromFen(POSITION_3), 14, 191, 2812, 43238);
+    }
+
+    @Test
+    @DisplayName("Position 4")
+    public void position4() {
+        assertPerft(ChessGame.fromFen(POSITION_4), 6, 264, 9467);
+    }
+
+    @Test
+    @DisplayName("Position 5")
+    public void position5() {
+        assertPerft(ChessGame.fromFen(POSITION_5), 44, 1486, 62379);
+    }
+
+    @Test
+    @DisplayName("Position 6")
+    public void position6() {
+        assertPerft(ChessGame.fromFen(POSITION_6), 46, 2079, 89890);
+    }
+
+    @Test
+    @DisplayName("Castling rights and castling through attacked squares")
+    public void castling() {
+        Assertions.assertEquals(1274206, Perft.perft(ChessGame.fromFen(CASTLING), 4));
+        Assertions.assertEquals(1720476, Perft.perft(ChessGame.fromFen("r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1"), 4));
+    }
+
+    @Test
+    @DisplayName("Castling gives check")
+    public void castlingGivesCheck() {
+        Assertions.assertEquals(661072, Perft.perft(ChessGame.fromFen("5k2/8/8/8/8/8/8/4K2R w K - 0 1"), 6));
+        Assertions.assertEquals(803711, Perft.perft(ChessGame.fromFen("3k4/8/8/8/8/8/8/R3K3 w Q - 0 1"), 6));
+    }
+
+    @Test
+    @DisplayName("En passant edge cases")
+    public void enPassant() {
+        // En passant would expose the king along its rank
+        Assertions.assertEquals(1134888, Perft.perft(ChessGame.fromFen("3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1"), 6));
+        Assertions.assertEquals(1015133, Perft.perft(ChessGame.fromFen("8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1"), 6));
+
+        // En passant capture gives check
+        Assertions.assertEquals(1440467, Perft.perft(ChessGame.fromFen(EN_PASSANT_CHECK), 6));
+    }
+
+    @Test
+    @DisplayName("Promotion, discovered check, stalemate and checkmate")
+    public void promotionAndGameEnd() {
+        Assertions.assertEquals(1004658, Perft.perft(ChessGame.fromFen("8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1"), 5));
+        Assertions.assertEquals(217342, Perft.perft(ChessGame.fromFen("4k3/1P6/8/8/8/8/K7/8 w - - 0 1"), 6));
+        Assertions.assertEquals(92683, Perft.perft(ChessGame.fromFen("8/P1k5/K7/8/8/8/8/8 w - - 0 1"), 6));
+        Assertions.assertEquals(2217, Perft.perft(ChessGame.fromFen("K1k5/8/P7/8/8/8/8/8 w - - 0 1"), 6));
+        Assertions.assertEquals(567584, Perft.perft(ChessGame.fromFen("8/k1P5/8/1K6/8/8/8/8 w - - 0 1"), 7));
+        Assertions.assertEquals(23527, Perft.perft(ChessGame.fromFen("8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1"), 4));
+    }
+
+    @Test
+    @DisplayName("MoveCalculator special moves agree with perft")
+    public void specialMoves() {
+        Assertions.assertEquals(8902, referencePerft(new ChessGame(), 3));
+        Assertions.assertEquals(2039, referencePerft(ChessGame.fromFen(KIWIPETE), 2));
+        Assertions.assertEquals(2812, referencePerft(ChessGame.fromFen(POSITION_3), 3));
+        Assertions.assertEquals(264, referencePerft(ChessGame.fromFen(POSITION_4), 2));
+        Assertions.assertEquals(1486, referencePerft(ChessGame.fromFen(POSITION_5), 2));
+
+        Assertions.assertEquals(Perft.perft(ChessGame.fromFen(EN_PASSANT_CHECK), 3),
+                referencePerft(ChessGame.fromFen(EN_PASSANT_CHECK), 3));
+        Assertions.assertEquals(Perft.perft(ChessGame.fromFen(CASTLING), 3),
+                referencePerft(ChessGame.fromFen(CASTLING), 3));
+        Assertions.assertEquals(Perft.perft(ChessGame.fromFen(KIWIPETE), 3),
+                referencePerft(ChessGame.fromFen(KIWIPETE), 3));
+    }
+
+    @Test
+    @DisplayName("Divide totals match perft")
+    public void divide() {
+        Map<ChessMove, Long> counts = Perft.divide(ChessGame.fromFen(KIWIPETE), 3);
+        Assertions.assertEquals(48, counts.size());
+        Assertions.assertEquals(97862, counts.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    @DisplayName("Deep: starting position")
+    public void deepStartingPosition() {
+        assumeDeep();
+        Assertions.assertEquals(4865609, Perft.perft(new ChessGame(), 5));
+        Assertions.assertEquals(119060324, Perft.perft(new ChessGame(), 6));
+    }
+
+    @Test
+    @DisplayName("Deep: Kiwipete")
+    public void deepKiwipete() {
+        assumeDeep();
+        Assertions.assertEquals(4085603, Perft.perft(ChessGame.fromFen(KIWIPETE), 4));
+        Assertions.assertEquals(193690690, Perft.perft(ChessGame.fromFen(KIWIPETE), 5));
+    }
+
+    @Test
+    @DisplayName("Deep: positions 3 to 6")
+    public void deepPositions() {
+        assumeDeep();
+        Assertions.assertEquals(11030083, Perft.perft(ChessGame.fromFen(POSITION_3), 6));
+        Assertions.assertEquals(15833292, Perft.perft(ChessGame.fromFen(POSITION_4), 5));
+        Assertions.assertEquals(89941194, Perft.perft(ChessGame.fromFen(POSITION_5), 5));
+        Assertions.assertEquals(3894594, Perft.perft(ChessGame.fromFen(POSITION_6), 4));
+    }
+
+    @Test
+    @DisplayName("Deep: promotion out of check")
+    public void deepPromotion() {
+        assumeDeep();
+        Assertions.assertEquals(3821001, Perft.perft(ChessGame.fromFen("2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1"), 6));
+    }
+}
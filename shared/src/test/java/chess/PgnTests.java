@@ -0,0 +1,319 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PgnTests {
+    private static final String GAMES = """
+            [Event "Casual"]
+            [White "Anderssen, Adolf"]
+            [Black "Kieseritzky, Lionel"]
+            [Result "1-0"]
+
+            1. e4 e5 2. f4 exf4 3. Bc4 Qh4+ {Black loses castling rights} 4. Kf1 b5?! (4... d6 5. Nf3)
+            5. Bxb5 Nf6 $4 6. Nf3 1-0
+
+            [Event "Escaped \\"quote\\""]
+            [SetUp "1"]
+            [FEN "4k3/P7/8/8/8/8/8/4K2R w K - 0 1"]
+            ; A comment to the end of the line
+            1.a8=Q+ Kd7 2.O-O *
+            % An escaped line 1. e4
+            1. d4 d5
+            """;
+
+    private static void assertParses(String fen, String san, String expected) {
+        Assertions.assertEquals(ChessMove.fromCoordinateNotation(expected), San.parse(ChessGame.fromFen(fen), san));
+    }
+
+    @Test
+    @DisplayName("Parse SAN moves")
+    public void parseSan() {
+        assertParses(Fen.STARTING_POSITION, "e4", "e2e4");
+        assertParses(Fen.STARTING_POSITION, "Nf3", "g1f3");
+        assertParses("4k3/8/8/3p4/4P3/8/8/4K3 w - - 0 1", "exd5", "e4d5");
+        assertParses("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "exd6", "e5d6");
+        assertParses("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1", "O-O", "e1g1");
+        assertParses("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1", "0-0-0+", "e1c1");
+        assertParses("4k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a8=N", "a7a8n");
+        assertParses("4k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a8Q+!", "a7a8q");
+        // Disambiguation by file, rank and square
+        assertParses("4k3/8/8/8/8/8/8/R3K2R w - - 0 1", "Rad1", "a1d1");
+        assertParses("R7/8/8/7k/8/8/8/R3K3 w - - 0 1", "R1a4", "a1a4");
+        assertParses("4k3/8/8/8/Q6Q/8/8/Q3K3 w - - 0 1", "Qa4d4", "a4d4");
+    }
+
+    @Test
+    @DisplayName("Reject invalid SAN moves")
+    public void invalidSan() {
+        ChessGame game = new ChessGame();
+        for (String san : List.of("", "e5", "Nc4", "Ke2", "O-O", "e9", "Zf3", "exd5")) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> San.parse(game, san), san);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> San.parse(ChessGame.fromFen("R7/8/8/7k/8/8/8/R3K3 w - - 0 1"), "Ra4"), "Ambiguous");
+    }
+
+    @Test
+    @DisplayName("Read games one at a time")
+    public void readGames() throws IOException, InvalidMoveException {
+        PgnReader reader = new PgnReader(new StringReader(GAMES));
+
+        PgnGame first = reader.next();
+        Assertions.assertEquals("Anderssen, Adolf", first.tag("White"));
+        Assertions.assertEquals(List.of("Event", "White", "Black", "Result"), List.copyOf(first.tags().keySet()));
+        Assertions.assertEquals(List.of("e4", "e5", "f4", "exf4", "Bc4", "Qh4+", "Kf1", "b5?!", "Bxb5", "Nf6", "Nf3"),
+                first.moves());
+        Assertions.assertEquals(PgnGame.WHITE_WINS, first.result());
+
+        PgnGame second = reader.next();
+        Assertions.assertEquals("Escaped \"quote\"", second.tag("Event"));
+        Assertions.assertEquals(List.of("a8=Q+", "Kd7", "O-O"), second.moves());
+        Assertions.assertEquals(PgnGame.UNKNOWN, second.result());
+        ChessGame game = second.startingPosition();
+        for (String san : second.moves()) {
+            game.makeMove(San.parse(game, san));
+        }
+        Assertions.assertEquals("Q7/3k4/8/8/8/8/8/5RK1 b - - 2 2", game.toFen());
+
+        // Movetext without tags or a termination marker at the end of the input
+        PgnGame third = reader.next();
+        Assertions.assertTrue(third.tags().isEmpty());
+        Assertions.assertEquals(List.of("d4", "d5"), third.moves());
+        Assertions.assertNull(third.result());
+        Assertions.assertNull(reader.next());
+    }
+
+    private static void assertFormats(String fen, String move, String expected) {
+        Assertions.assertEquals(expected, San.format(ChessGame.fromFen(fen), ChessMove.fromCoordinateNotation(move)));
+    }
+
+    @Test
+    @DisplayName("Format SAN moves")
+    public void formatSan() {
+        assertFormats(Fen.STARTING_POSITION, "e2e4", "e4");
+        assertFormats(Fen.STARTING_POSITION, "g1f3", "Nf3");
+        assertFormats("4k3/8/8/3p4/4P3/8/8/4K3 w - - 0 1", "e4d5", "exd5");
+        assertFormats("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6", "exd6");
+        assertFormats("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1", "e1g1", "O-O");
+        assertFormats("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1", "e1c1", "O-O-O");
+        assertFormats("4k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7a8n", "a8=N");
+        assertFormats("4k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7a8q", "a8=Q+");
+        assertFormats("1n2k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7b8r", "axb8=R+");
+        // Disambiguation by file, rank and square, but only between pieces of the same type
+        assertFormats("4k3/8/8/8/8/8/4K3/R6R w - - 0 1", "a1d1", "Rad1");
+        assertFormats("R7/8/8/7k/8/8/8/R3K3 w - - 0 1", "a1a4", "R1a4");
+        assertFormats("4k3/8/8/8/Q6Q/8/8/Q3K3 w - - 0 1", "a4d4", "Qa4d4");
+        assertFormats("4k3/8/8/8/8/8/8/R2QK3 w - - 0 1", "a1b1", "Rb1");
+        // A piece that can't legally move there doesn't need to be told apart
+        assertFormats("4k3/4r3/8/8/8/8/4N3/1N2K3 w - - 0 1", "b1c3", "Nc3");
+        // Check and mate
+        assertFormats("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", "a1a8", "Ra8#");
+        assertFormats("6k1/5pp1/8/8/8/8/8/R5K1 w - - 0 1", "a1a8", "Ra8+");
+        assertFormats("rnbqkbnr/pppp1ppp/8/4p3/6P1/5P2/PPPPP2P/RNBQKBNR b KQkq - 0 2", "d8h4", "Qh4#");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> San.format(new ChessGame(), ChessMove.fromCoordinateNotation("e2e5")));
+    }
+
+    @Test
+    @DisplayName("Formatted moves parse back to the same move")
+    public void formatRoundTrip() {
+        SplittableRandom random = new SplittableRandom(25);
+        int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+        for (int g = 0; g < 50; g++) {
+            RandomGames.play(random, 200, game -> {
+                int count = LegalMoveGenerator.generate(game, moves);
+                String fen = game.toFen();
+                for (int i = 0; i < count; i++) {
+                    String san = San.format(game, moves[i]);
+                    Assertions.assertEquals(fen, game.toFen(), "Formatting leaves the game as it was");
+                    Assertions.assertEquals(moves[i], San.parsePacked(game, san), fen + " " + san);
+                }
+            });
+        }
+    }
+
+    @Test
+    @DisplayName("Written games read back the same")
+    public void writeRoundTrip() throws IOException, InvalidMoveException {
+        SplittableRandom random = new SplittableRandom(11);
+        List<PgnGame> games = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            games.add(PgnGame.of(RandomGames.play(random, 150), Map.of("Event", "Random \\\"game\\\" " + i), null));
+        }
+        // Black to move first, with the full move number of the FEN
+        ChessGame fromFen = ChessGame.fromFen("4k3/8/8/8/8/8/4p3/4K3 b - - 3 40");
+        fromFen.makeMove(ChessMove.fromCoordinateNotation("e8d7"));
+        fromFen.makeMove(ChessMove.fromCoordinateNotation("e1e2"));
+        games.add(PgnGame.of(fromFen, Map.of(), PgnGame.DRAW));
+
+        StringWriter out = new StringWriter();
+        try (PgnWriter writer = new PgnWriter(out)) {
+            for (PgnGame game : games) {
+                writer.write(game);
+            }
+        }
+        String text = out.toString();
+        Assertions.assertTrue(text.lines().allMatch(line -> line.length() <= 79));
+        Assertions.assertTrue(text.contains("40... Kd7 41. Kxe2 1/2-1/2"), text);
+
+        PgnReader reader = new PgnReader(new StringReader(text));
+        for (PgnGame game : games) {
+            Assertions.assertEquals(game, reader.next());
+        }
+        Assertions.assertNull(reader.next());
+        Assertions.assertEquals("8/3k4/8/8/8/8/4K3/8 b - - 0 41",
+                games.get(games.size() - 1).replay().toFen());
+    }
+
+    @Test
+    @DisplayName("Record games with their result and starting position")
+    public void recordGame() throws InvalidMoveException {
+        ChessGame mate = new ChessGame();
+        for (String move : List.of("f2f3", "e7e5", "g2g4", "d8h4")) {
+            mate.makeMove(ChessMove.fromCoordinateNotation(move));
+        }
+        PgnGame pgn = PgnGame.of(mate, Map.of("White", "Fool"), null);
+        Assertions.assertEquals(List.of("f3", "e5", "g4", "Qh4#"), pgn.moves());
+        Assertions.assertEquals(PgnGame.BLACK_WINS, pgn.result());
+        Assertions.assertEquals(List.of("White", "Result"), List.copyOf(pgn.tags().keySet()));
+        Assertions.assertEquals(mate.toFen(), pgn.replay().toFen());
+
+        ChessGame fromFen = ChessGame.fromFen("4k3/P7/8/8/8/8/8/4K3 w - - 0 1");
+        fromFen.makeMove(ChessMove.fromCoordinateNotation("a7a8q"));
+        pgn = PgnGame.of(fromFen, Map.of(), null);
+        Assertions.assertEquals("4k3/P7/8/8/8/8/8/4K3 w - - 0 1", pgn.tag("FEN"));
+        Assertions.assertEquals(List.of("a8=Q+"), pgn.moves());
+        Assertions.assertEquals(PgnGame.UNKNOWN, pgn.result());
+        // A copy can be recorded too, since it keeps the history
+        Assertions.assertEquals(pgn, PgnGame.of(new ChessGame(fromFen), Map.of(), null));
+    }
+
+    @Test
+    @DisplayName("Replaying reports where a game goes wrong")
+    public void replayErrors() {
+        PgnGame illegal = new PgnGame(Map.of(), List.of("e4", "e5", "Ke3"), null);
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class, illegal::replay);
+        Assertions.assertTrue(e.getMessage().endsWith("at move 2."), e.getMessage());
+        PgnGame black = new PgnGame(Map.of(), List.of("e4", "Nf4"), null);
+        e = Assertions.assertThrows(IllegalArgumentException.class, black::replay);
+        Assertions.assertTrue(e.getMessage().endsWith("at move 1..."), e.getMessage());
+        PgnGame badFen = new PgnGame(Map.of("FEN", "not a position"), List.of(), null);
+        Assertions.assertThrows(IllegalArgumentException.class, badFen::replay);
+    }
+
+    @Test
+    @DisplayName("Malformed input doesn't stop the reader")
+    public void malformedInput() throws IOException {
+        String longToken = "x".repeat(PgnReader.MAX_LENGTH * 4);
+        String text = "\uFEFF[Event \"Unterminated\n1. e4 e5 *\n\n[Event \"" + longToken + "\"]\n\n1. " + longToken
+                + " *\n\n1. d4 *\n";
+        PgnReader reader = new PgnReader(new StringReader(text));
+
+        PgnGame first = reader.next();
+        Assertions.assertEquals("Unterminated", first.tag("Event"));
+        Assertions.assertEquals(List.of("e4", "e5"), first.moves());
+
+        PgnGame second = reader.next();
+        Assertions.assertEquals(PgnReader.MAX_LENGTH, second.tag("Event").length());
+        Assertions.assertEquals(PgnReader.MAX_LENGTH, second.moves().get(0).length());
+        Assertions.assertEquals(PgnGame.UNKNOWN, second.result());
+
+        Assertions.assertEquals(List.of("d4"), reader.next().moves());
+        Assertions.assertNull(reader.next());
+    }
+
+    @Test
+    @DisplayName("A blank line or movetext ends a game's tags, even without a result")
+    public void tagOnlyGames() throws IOException {
+        String text = "[Event \"First\"]\n[Round \"1\"]\n\n[Event \"Second\"]\r\n\r\n[Event \"Third\"]\n1. e4\n"
+                + "[Event \"Fourth\"]\n{No moves}\n[Event \"Fifth\"]\n[Round \"5\"]\n";
+        PgnReader reader = new PgnReader(new StringReader(text));
+
+        PgnGame first = reader.next();
+        Assertions.assertEquals(Map.of("Event", "First", "Round", "1"), first.tags());
+        Assertions.assertEquals(List.of(), first.moves());
+        Assertions.assertNull(first.result());
+        Assertions.assertEquals(Map.of("Event", "Second"), reader.next().tags());
+        PgnGame third = reader.next();
+        Assertions.assertEquals(Map.of("Event", "Third"), third.tags());
+        Assertions.assertEquals(List.of("e4"), third.moves());
+        Assertions.assertEquals(Map.of("Event", "Fourth"), reader.next().tags());
+        Assertions.assertEquals(Map.of("Event", "Fifth", "Round", "5"), reader.next().tags());
+        Assertions.assertNull(reader.next());
+    }
+
+    @Test
+    @DisplayName("The pipeline replays every game")
+    public void pipeline() throws IOException {
+        SplittableRandom random = new SplittableRandom(5);
+        StringWriter out = new StringWriter();
+        int games = PgnPipeline.BATCH_SIZE * 3 + 7;
+        long moves = 0;
+        try (PgnWriter writer = new PgnWriter(out)) {
+            for (int i = 0; i < games; i++) {
+                PgnGame game = PgnGame.of(RandomGames.play(random, 60), Map.of("Round", String.valueOf(i)), null);
+                if (i % 100 == 0) {
+                    game = new PgnGame(game.tags(), List.of("e4", "e4"), null);
+                } else {
+                    moves += game.moves().size();
+                }
+                writer.write(game);
+            }
+        }
+
+        List<PgnPipeline.Replayed> replayed = Collections.synchronizedList(new ArrayList<>());
+        PgnPipeline.Summary summary;
+        try (PgnPipeline pipeline = new PgnPipeline(3)) {
+            summary = pipeline.run(new StringReader(out.toString()), replayed::add);
+        }
+        Assertions.assertEquals(new PgnPipeline.Summary(games, (games + 99) / 100, moves), summary);
+        Assertions.assertEquals(games, replayed.size());
+        for (PgnPipeline.Replayed game : replayed) {
+            boolean invalid = Integer.parseInt(game.pgn().tag("Round")) % 100 == 0;
+            Assertions.assertEquals(invalid, !game.isValid());
+            Assertions.assertEquals(invalid, game.game() == null);
+        }
+
+        AtomicInteger seen = new AtomicInteger();
+        try (PgnPipeline pipeline = new PgnPipeline(2)) {
+            Assertions.assertThrows(IllegalStateException.class, () -> pipeline.run(new StringReader(out.toString()),
+                    game -> {
+                        if (seen.incrementAndGet() == 10) {
+                            throw new IllegalStateException("Stop");
+                        }
+                    }));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new PgnPipeline(0));
+    }
+
+    @Test
+    @DisplayName("The pipeline reports errors rather than hanging or losing them")
+    public void pipelineFailures() {
+        PgnPipeline closed = new PgnPipeline(1);
+        closed.close();
+        Assertions.assertThrows(RejectedExecutionException.class,
+                () -> closed.run(new StringReader(GAMES), game -> {
+                }));
+
+        try (PgnPipeline pipeline = new PgnPipeline(2)) {
+            AssertionError e = Assertions.assertThrows(AssertionError.class,
+                    () -> pipeline.run(new StringReader(GAMES), game -> {
+                        throw new AssertionError("Stop");
+                    }));
+            Assertions.assertEquals("Stop", e.getMessage());
+        }
+    }
+}
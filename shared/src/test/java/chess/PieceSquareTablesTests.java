@@ -0,0 +1,104 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class PieceSquareTablesTests {
+
+    /**
+     * Sum the values of every piece on the board, ignoring the incrementally maintained scores
+     */
+    private static void assertMatchesScratch(Bitboard bitboard) {
+        int score = 0;
+        int phase = 0;
+        for (int square = 0; square < 64; square++) {
+            int piece = bitboard.pieceAt(square);
+            if (piece != Bitboard.NO_PIECE) {
+                score += PieceSquareTables.value(piece, square);
+                phase += PieceSquareTables.phase(piece);
+            }
+        }
+        Assertions.assertEquals(PieceSquareTables.middlegame(score), bitboard.middlegameScore());
+        Assertions.assertEquals(PieceSquareTables.endgame(score), bitboard.endgameScore());
+        Assertions.assertEquals(phase, bitboard.phase());
+        Assertions.assertEquals(PieceSquareTables.taper(score, phase), bitboard.score());
+    }
+
+    @Test
+    @DisplayName("Incremental score matches a recomputation over random games")
+    public void incrementalMatchesScratch() {
+        for (int seed = 0; seed < 20; seed++) {
+            List<Integer> scores = new ArrayList<>();
+            ChessGame game = RandomGames.play(new Random(seed), 200, played -> {
+                scores.add(played.getBoard().getBitboard().score());
+                assertMatchesScratch(played.getBoard().getBitboard());
+                // A copy carries the scores over
+                assertMatchesScratch(new ChessBoard(played.getBoard()).getBitboard());
+            });
+            // Unmaking every move restores every earlier score
+            for (int i = scores.size() - 2; i >= 0; i--) {
+                game.unmakeMove();
+                Assertions.assertEquals(scores.get(i), game.getBoard().getBitboard().score());
+                assertMatchesScratch(game.getBoard().getBitboard());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Starting position is balanced and in the middlegame")
+    public void startingPosition() {
+        Bitboard bitboard = new ChessGame().getBoard().getBitboard();
+        Assertions.assertEquals(0, bitboard.score());
+        Assertions.assertEquals(0, bitboard.middlegameScore());
+        Assertions.assertEquals(0, bitboard.endgameScore());
+        Assertions.assertEquals(PieceSquareTables.MAX_PHASE, bitboard.phase());
+
+        ChessBoard empty = new ChessBoard();
+        Assertions.assertEquals(0, empty.getBitboard().phase());
+        empty.resetBoard();
+        Assertions.assertEquals(PieceSquareTables.MAX_PHASE, empty.getBitboard().phase());
+    }
+
+    @Test
+    @DisplayName("Mirrored positions have opposite scores")
+    public void mirrored() {
+        ChessBoard white = ChessBoard.fromFen("4k3/8/8/8/3N4/8/1P6/4K3");
+        ChessBoard black = ChessBoard.fromFen("4k3/1p6/8/3n4/8/8/8/4K3");
+        Assertions.assertTrue(white.getBitboard().score() > 300);
+        Assertions.assertEquals(-white.getBitboard().middlegameScore(), black.getBitboard().middlegameScore());
+        Assertions.assertEquals(-white.getBitboard().endgameScore(), black.getBitboard().endgameScore());
+        Assertions.assertEquals(-white.getBitboard().score(), black.getBitboard().score());
+    }
+
+    @Test
+    @DisplayName("Kings centralize in the endgame")
+    public void taper() {
+        ChessBoard corner = ChessBoard.fromFen("4k3/pppppppp/8/8/8/8/PPPPPPPP/K7");
+        ChessBoard center = ChessBoard.fromFen("4k3/pppppppp/8/8/3K4/8/PPPPPPPP/8");
+        Assertions.assertEquals(0, center.getBitboard().phase());
+        Assertions.assertTrue(center.getBitboard().score() > corner.getBitboard().score());
+
+        ChessBoard middlegame = ChessBoard.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR");
+        ChessBoard exposed = ChessBoard.fromFen("rnbqkbnr/pppppppp/8/8/3K4/8/PPPPPPPP/RNBQ1BNR");
+        Assertions.assertTrue(middlegame.getBitboard().score() > exposed.getBitboard().score());
+    }
+
+    @Test
+    @DisplayName("Packed values")
+    public void packing() {
+        for (int middlegame : new int[]{-1000, -1, 0, 1, 1000}) {
+            for (int endgame : new int[]{-1000, -1, 0, 1, 1000}) {
+                int value = PieceSquareTables.pack(middlegame, endgame);
+                Assertions.assertEquals(middlegame, PieceSquareTables.middlegame(value));
+                Assertions.assertEquals(endgame, PieceSquareTables.endgame(value));
+                Assertions.assertEquals(middlegame, PieceSquareTables.taper(value, PieceSquareTables.MAX_PHASE));
+                Assertions.assertEquals(endgame, PieceSquareTables.taper(value, 0));
+            }
+        }
+    }
+}
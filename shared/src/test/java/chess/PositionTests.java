@@ -0,0 +1,112 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class PositionTests {
+
+    private static long perft(Position position, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long nodes = 0;
+        for (ChessMove move : position.legalMoves()) {
+            nodes += perft(position.after(move), depth - 1);
+        }
+        return nodes;
+    }
+
+    @Test
+    @DisplayName("Positions derived from a snapshot match the game")
+    public void matchesGame() {
+        // The position is derived move by move alongside the game
+        Position[] followed = {Position.start()};
+        ChessGame game = RandomGames.play(new Random(240), 120, played -> {
+            if (!played.getHistory().isEmpty()) {
+                followed[0] = followed[0].after(played.getHistory().getLast());
+            }
+            Position position = followed[0];
+            Assertions.assertEquals(new ArrayList<>(LegalMoveGenerator.legalMoves(played)),
+                    new ArrayList<>(position.legalMoves()));
+            Assertions.assertEquals(played.getBoard(), position.getBoard());
+            Assertions.assertEquals(played.getTeamTurn(), position.getTeamTurn());
+            Assertions.assertEquals(played.getCastlingRights(), position.getCastlingRights());
+            Assertions.assertEquals(played.getEnPassantSquare(), position.getEnPassantSquare());
+            Assertions.assertEquals(played.getHalfmoveClock(), position.getHalfmoveClock());
+            Assertions.assertEquals(played.getFullmoveNumber(), position.getFullmoveNumber());
+            Assertions.assertEquals(played.positionKey(), position.positionKey());
+            Assertions.assertEquals(played.isInCheck(played.getTeamTurn()), position.isInCheck());
+            Assertions.assertEquals(played.getHistory(), position.getHistory().toList());
+        });
+        Position position = followed[0];
+        Assertions.assertEquals(position, game.snapshot());
+        Assertions.assertEquals(position.toGame().getBoard(), game.getBoard());
+        Assertions.assertEquals(position.toGame().getHistory(), game.getHistory());
+    }
+
+    @Test
+    @DisplayName("Deriving a position leaves the parent unchanged and shares its history")
+    public void immutable() {
+        Position start = Position.start();
+        ChessMove e4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        ChessMove d4 = new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null);
+        Position afterE4 = start.after(e4);
+        Position afterD4 = start.after(d4);
+
+        Assertions.assertEquals(new ChessGame().getBoard(), start.getBoard());
+        Assertions.assertTrue(start.getHistory().isEmpty());
+        Assertions.assertEquals(List.of(e4), afterE4.getHistory().toList());
+        Assertions.assertEquals(List.of(d4), afterD4.getHistory().toList());
+
+        Position next = afterE4.after(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        Assertions.assertSame(afterE4.getHistory(), next.getHistory().previous());
+
+        // Modifying a board handed out by a position does not affect the position
+        ChessBoard board = start.getBoard();
+        board.setPiece(new ChessPosition(1, 5), null);
+        Assertions.assertNotNull(start.getPiece(new ChessPosition(1, 5)));
+
+        // Games created from a position are independent of it
+        ChessGame game = afterE4.toGame();
+        game.makeMoveUnchecked(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        Assertions.assertEquals(1, afterE4.getHistory().size());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, afterE4.getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("Games made from a position keep their repetitions and can unmake moves")
+    public void repetitionsAndUndo() {
+        ChessGame game = new ChessGame();
+        Position position = Position.start();
+        for (String move : List.of("g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6", "f3g1")) {
+            game.makeMoveUnchecked(ChessMove.fromCoordinateNotation(move));
+            position = position.after(ChessMove.fromCoordinateNotation(move));
+        }
+        // The snapshot is taken after the first repetition, and the second happens after it
+        Position snapshot = game.snapshot();
+        Assertions.assertEquals(1, position.getRepetitions());
+        Assertions.assertEquals(1, snapshot.getRepetitions());
+        Position repeated = snapshot.after(ChessMove.fromCoordinateNotation("f6g8"));
+        Assertions.assertEquals(2, repeated.getRepetitions());
+        Assertions.assertEquals(GameStatus.THREEFOLD_REPETITION, repeated.toGame().status());
+        Assertions.assertEquals(GameStatus.THREEFOLD_REPETITION, position.after(
+                ChessMove.fromCoordinateNotation("f6g8")).toGame().status());
+
+        ChessGame fromSnapshot = repeated.toGame();
+        while (!fromSnapshot.getHistory().isEmpty()) {
+            fromSnapshot.unmakeMove();
+        }
+        Assertions.assertEquals(Fen.STARTING_POSITION, fromSnapshot.toFen());
+    }
+
+    @Test
+    @DisplayName("Perft over immutable positions")
+    public void perft() {
+        Assertions.assertEquals(8902, perft(Position.start(), 3));
+    }
+}
@@ -0,0 +1,45 @@
+package chess;
+
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * Games of random legal moves from the starting position, for tests that check an invariant over many realistic
+ * positions
+ */
+final class RandomGames {
+    private RandomGames() {
+    }
+
+    /**
+     * Play random legal moves, stopping early if the team to move has none
+     *
+     * @return The game after its last move
+     */
+    static ChessGame play(RandomGenerator random, int plies) {
+        return play(random, plies, game -> {
+        });
+    }
+
+    /**
+     * Play random legal moves, stopping early if the team to move has none
+     *
+     * @param visitor Called with the game in every position it reaches, from the start through the last, before the
+     *                next move is picked. It must leave the game as it was.
+     * @return The game after its last move
+     */
+    static ChessGame play(RandomGenerator random, int plies, Consumer<ChessGame> visitor) {
+        ChessGame game = new ChessGame();
+        int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+        visitor.accept(game);
+        for (int ply = 0; ply < plies; ply++) {
+            int count = LegalMoveGenerator.generate(game, moves);
+            if (count == 0) {
+                break;
+            }
+            game.makeMoveUnchecked(moves[random.nextInt(count)]);
+            visitor.accept(game);
+        }
+        return game;
+    }
+}
@@ -0,0 +1,85 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class ZobristTests {
+
+    private static ChessMove move(String from, String to) {
+        return new ChessMove(new ChessPosition(from.charAt(1) - '0', from.charAt(0) - 'a' + 1),
+                new ChessPosition(to.charAt(1) - '0', to.charAt(0) - 'a' + 1), null);
+    }
+
+    private static ChessGame play(String... moves) {
+        ChessGame game = new ChessGame();
+        for (int i = 0; i < moves.length; i += 2) {
+            game.makeMoveUnchecked(move(moves[i], moves[i + 1]));
+        }
+        return game;
+    }
+
+    @Test
+    @DisplayName("Incremental key matches a board built from scratch")
+    public void incrementalMatchesScratch() {
+        RandomGames.play(new Random(240), 100, game -> {
+            ChessBoard rebuilt = new ChessBoard();
+            for (int square = 0; square < 64; square++) {
+                ChessPosition position = Bitboard.position(square);
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece != null) {
+                    rebuilt.addPiece(position, piece);
+                }
+            }
+            Assertions.assertEquals(rebuilt.getBitboard().key(), game.getBoard().getBitboard().key());
+            Assertions.assertEquals(rebuilt, game.getBoard());
+            Assertions.assertEquals(rebuilt.hashCode(), game.getBoard().hashCode());
+        });
+    }
+
+    @Test
+    @DisplayName("Transpositions have the same key")
+    public void transpositions() {
+        ChessGame a = play("g1", "f3", "g8", "f6", "b1", "c3");
+        ChessGame b = play("b1", "c3", "g8", "f6", "g1", "f3");
+        Assertions.assertEquals(a.positionKey(), b.positionKey());
+    }
+
+    @Test
+    @DisplayName("Side to move and castling rights change the key")
+    public void sideAndCastling() {
+        ChessGame game = new ChessGame();
+        long start = game.positionKey();
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertNotEquals(start, game.positionKey());
+
+        // Knights out and back leaves the same position; king out and back loses castling rights
+        Assertions.assertEquals(start, play("g1", "f3", "g8", "f6", "f3", "g1", "f6", "g8").positionKey());
+        ChessGame kingMoved = play("e2", "e4", "e7", "e5", "e1", "e2", "e8", "e7", "e2", "e1", "e7", "e8");
+        ChessGame pawnsOnly = play("e2", "e4", "e7", "e5");
+        Assertions.assertEquals(pawnsOnly.getBoard(), kingMoved.getBoard());
+        Assertions.assertNotEquals(pawnsOnly.positionKey(), kingMoved.positionKey());
+    }
+
+    @Test
+    @DisplayName("En passant file only counts when the capture is possible")
+    public void enPassant() {
+        // No black pawn can capture on e3, so this is the same position as without the en passant square
+        ChessGame doublePush = play("e2", "e4");
+        Assertions.assertNotEquals(Bitboard.NO_SQUARE, doublePush.getEnPassantSquare());
+        Assertions.assertEquals(withoutEnPassant(doublePush).positionKey(), doublePush.positionKey());
+
+        // With a black pawn on d4, e2-e4 allows en passant and the key differs
+        ChessGame capturable = play("d2", "d3", "d7", "d5", "h2", "h3", "d5", "d4", "e2", "e4");
+        Assertions.assertNotEquals(withoutEnPassant(capturable).positionKey(), capturable.positionKey());
+    }
+
+    private static ChessGame withoutEnPassant(ChessGame game) {
+        ChessGame copy = new ChessGame();
+        copy.setBoard(new ChessBoard(game.getBoard()));
+        copy.setTeamTurn(game.getTeamTurn());
+        return copy;
+    }
+}
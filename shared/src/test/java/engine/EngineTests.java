@@ -0,0 +1,179 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.LegalMoveGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class EngineTests {
+
+    private static SearchResult search(String fen, SearchLimits limits) {
+        return new Engine().search(ChessGame.fromFen(fen), limits);
+    }
+
+    @Test
+    @DisplayName("Finds mate in one")
+    public void mateInOne() {
+        SearchResult result = search("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", SearchLimits.depth(4));
+        Assertions.assertEquals(ChessMove.fromCoordinateNotation("a1a8"), result.bestMove());
+        Assertions.assertTrue(result.isMate());
+        Assertions.assertEquals(1, result.mateIn());
+    }
+
+    @Test
+    @DisplayName("Finds mate in two")
+    public void mateInTwo() {
+        SearchResult result = search("r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w KQkq - 1 1",
+                SearchLimits.depth(4));
+        Assertions.assertEquals(ChessMove.fromCoordinateNotation("d5f6"), result.bestMove());
+        Assertions.assertEquals(2, result.mateIn());
+    }
+
+    @Test
+    @DisplayName("Sees being mated")
+    public void matedInOne() {
+        SearchResult result = search("6k1/8/8/8/8/8/r4PPP/6K1 b - - 0 1", SearchLimits.depth(3));
+        Assertions.assertEquals(ChessMove.fromCoordinateNotation("a2a1"), result.bestMove());
+
+        result = search("k7/8/1K6/8/8/8/8/7R b - - 0 1", SearchLimits.depth(3));
+        Assertions.assertEquals(-1, result.mateIn());
+    }
+
+    @Test
+    @DisplayName("Wins material")
+    public void winsMaterial() {
+        SearchResult result = search("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1", SearchLimits.depth(2));
+        Assertions.assertEquals(ChessMove.fromCoordinateNotation("d2d5"), result.bestMove());
+        Assertions.assertTrue(result.score() >= 400, "Score " + result.score());
+    }
+
+    @Test
+    @DisplayName("Quiescence sees defended pieces")
+    public void quiescence() {
+        SearchResult result = search("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1", SearchLimits.depth(1));
+        Assertions.assertNotEquals(ChessMove.fromCoordinateNotation("d1d5"), result.bestMove());
+    }
+
+    @Test
+    @DisplayName("Quiescence sees checkmate")
+    public void quiescenceMate() {
+        // Taking the knight lets black capture into mate on g2, which only quiescence reaches at depth 1
+        SearchResult result = search("6k1/1b1n1ppp/8/6q1/8/8/5PPP/3R2K1 w - - 0 1", SearchLimits.depth(1));
+        Assertions.assertNotEquals(ChessMove.fromCoordinateNotation("d1d7"), result.bestMove());
+        Assertions.assertFalse(result.isMate(), "Mate score " + result.score());
+    }
+
+    @Test
+    @DisplayName("Checkmate on the hundredth halfmove is not a draw")
+    public void mateBeatsFiftyMoveRule() {
+        SearchResult result = search("6k1/5ppp/8/8/8/8/8/R5K1 w - - 99 80", SearchLimits.depth(2));
+        Assertions.assertEquals(ChessMove.fromCoordinateNotation("a1a8"), result.bestMove());
+        Assertions.assertEquals(1, result.mateIn());
+        // Without a mate, every move draws
+        result = search("6k1/5ppp/8/8/8/8/8/6K1 w - - 99 80", SearchLimits.depth(2));
+        Assertions.assertEquals(0, result.score());
+    }
+
+    @Test
+    @DisplayName("Positions without legal moves")
+    public void noLegalMoves() {
+        SearchResult stalemate = search("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1", SearchLimits.depth(5));
+        Assertions.assertNull(stalemate.bestMove());
+        Assertions.assertEquals(0, stalemate.score());
+        Assertions.assertTrue(stalemate.principalVariation().isEmpty());
+
+        SearchResult checkmate = search("7k/6Q1/6K1/8/8/8/8/8 b - - 0 1", SearchLimits.depth(5));
+        Assertions.assertNull(checkmate.bestMove());
+        Assertions.assertEquals(-Engine.MATE, checkmate.score());
+    }
+
+    @Test
+    @DisplayName("Principal variation is a legal line")
+    public void principalVariation() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String fen = game.toFen();
+        SearchResult result = new Engine().search(game, SearchLimits.depth(3));
+        Assertions.assertEquals(fen, game.toFen(), "Search changed the game");
+        Assertions.assertTrue(game.getHistory().isEmpty());
+
+        Assertions.assertEquals(3, result.depth());
+        Assertions.assertFalse(result.principalVariation().isEmpty());
+        Assertions.assertEquals(result.bestMove(), result.principalVariation().getFirst());
+        for (ChessMove move : result.principalVariation()) {
+            Assertions.assertTrue(LegalMoveGenerator.isLegal(game, move), "Illegal move in PV: " + move);
+            game.makeMoveUnchecked(move);
+        }
+    }
+
+    @Test
+    @DisplayName("Node and time limits")
+    public void limits() {
+        SearchResult result = new Engine().search(new ChessGame(), SearchLimits.nodes(20_000));
+        Assertions.assertTrue(result.depth() >= 1);
+        // The search stops on the node that reaches the limit, which is in an iteration it doesn't finish
+        Assertions.assertEquals(20_000, result.nodes());
+        Assertions.assertNotNull(result.bestMove());
+
+        long start = System.nanoTime();
+        result = new Engine().search(new ChessGame(), SearchLimits.time(200));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        Assertions.assertTrue(millis < 1000, "Took " + millis + " ms");
+        Assertions.assertNotNull(result.bestMove());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SearchLimits.depth(-1));
+    }
+
+    @Test
+    @DisplayName("Engines can be reused")
+    public void reuse() {
+        Engine engine = new Engine();
+        SearchResult first = engine.search(new ChessGame(), SearchLimits.depth(3));
+        engine.search(ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), SearchLimits.depth(3));
+        engine.newGame();
+        SearchResult again = engine.search(new ChessGame(), SearchLimits.depth(3));
+        Assertions.assertEquals(first.bestMove(), again.bestMove());
+        Assertions.assertEquals(first.score(), again.score());
+        Assertions.assertEquals(first.nodes(), again.nodes());
+    }
+
+    @Test
+    @DisplayName("Searching again reuses the transposition table")
+    public void transpositionTable() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        Engine engine = new Engine(new TranspositionTable(4));
+        SearchResult first = engine.search(game, SearchLimits.depth(3));
+        SearchResult second = engine.search(game, SearchLimits.depth(3));
+        Assertions.assertEquals(first.bestMove(), second.bestMove());
+        Assertions.assertTrue(second.nodes() < first.nodes() / 2, first.nodes() + " then " + second.nodes());
+        Assertions.assertTrue(engine.getTable().stats().hitRate() > 0);
+    }
+
+    @Test
+    @DisplayName("Parallel search")
+    public void parallelSearch() {
+        try (Engine engine = new Engine(new TranspositionTable(4), 4)) {
+            Assertions.assertEquals(4, engine.getThreads());
+            SearchResult mate = engine.search(ChessGame.fromFen(
+                    "r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w KQkq - 1 1"), SearchLimits.depth(4));
+            Assertions.assertEquals(ChessMove.fromCoordinateNotation("d5f6"), mate.bestMove());
+            Assertions.assertEquals(2, mate.mateIn());
+
+            ChessGame game = ChessGame.fromFen(
+                    "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+            SearchResult result = engine.search(game, SearchLimits.depth(4));
+            Assertions.assertEquals(4, result.depth());
+            for (ChessMove move : result.principalVariation()) {
+                Assertions.assertTrue(LegalMoveGenerator.isLegal(game, move), "Illegal move in PV: " + move);
+                game.makeMoveUnchecked(move);
+            }
+
+            result = engine.search(new ChessGame(), SearchLimits.nodes(50_000));
+            Assertions.assertNotNull(result.bestMove());
+            Assertions.assertTrue(result.nodes() < 100_000, "Searched " + result.nodes() + " nodes");
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Engine(new TranspositionTable(1), 0));
+    }
+}
@@ -0,0 +1,93 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.LegalMoveGenerator;
+import chess.PackedMove;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+public class MovePickerTests {
+
+    private static int see(String fen, String move) {
+        ChessGame game = ChessGame.fromFen(fen);
+        int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+        int count = LegalMoveGenerator.generate(game, moves);
+        int packed = PackedMove.of(ChessMove.fromCoordinateNotation(move));
+        for (int i = 0; i < count; i++) {
+            if (PackedMove.withoutFlags(moves[i]) == packed) {
+                return new StaticExchange().evaluate(game.getBoard().getBitboard(), moves[i]);
+            }
+        }
+        throw new AssertionError(move + " is not legal");
+    }
+
+    private static int pack(String move) {
+        return PackedMove.of(ChessMove.fromCoordinateNotation(move));
+    }
+
+    @Test
+    @DisplayName("Static exchange evaluation")
+    public void staticExchange() {
+        // Undefended knight
+        Assertions.assertEquals(320, see("4k3/8/8/4n3/3P4/8/8/4K3 w - - 0 1", "d4e5"));
+        // Knight defended by a pawn, taken by a pawn
+        Assertions.assertEquals(220, see("4k3/8/3p4/4n3/3P4/8/8/4K3 w - - 0 1", "d4e5"));
+        // Pawn defended by a pawn, taken by a rook
+        Assertions.assertEquals(-400, see("4k3/8/3p4/4p3/8/8/8/4RK2 w - - 0 1", "e1e5"));
+        // The rook behind the first one joins in once it has recaptured
+        Assertions.assertEquals(100, see("3rk3/8/8/3p4/8/8/3R4/3RK3 w - - 0 1", "d2d5"));
+        Assertions.assertEquals(-400, see("3rk3/3r4/8/3p4/8/8/3R4/3RK3 w - - 0 1", "d2d5"));
+        // The king can't recapture a defended piece
+        Assertions.assertEquals(100, see("8/8/3k4/3p4/8/8/3R4/3RK3 w - - 0 1", "d2d5"));
+        Assertions.assertEquals(-400, see("8/8/3k4/3p4/8/8/3R4/4K3 w - - 0 1", "d2d5"));
+        // En passant
+        Assertions.assertEquals(100, see("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6"));
+    }
+
+    @Test
+    @DisplayName("Moves come in stages")
+    public void stages() {
+        // White can win the queen, take a defended pawn with the knight or the queen, or play quiet moves
+        ChessGame game = ChessGame.fromFen("4k3/8/2p5/1p1q4/Q7/2N5/8/4K3 w - - 0 1");
+        int[] list = new int[LegalMoveGenerator.MAX_MOVES];
+        int count = LegalMoveGenerator.generate(game, list);
+        int hashMove = pack("e1f2");
+        int[] killers = {pack("a4a7"), pack("h7h8")};
+        int[] history = new int[64 * 64];
+        int historyMove = pack("a4h4");
+        history[PackedMove.from(historyMove) << 6 | PackedMove.to(historyMove)] = 100;
+
+        MovePicker picker = new MovePicker(new StaticExchange());
+        picker.start(list, count, game.getBoard().getBitboard(), hashMove, killers, history);
+        List<Integer> picked = new ArrayList<>();
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            picked.add(PackedMove.withoutFlags(move));
+        }
+
+        Assertions.assertEquals(count, picked.size());
+        Assertions.assertEquals(count, new HashSet<>(picked).size(), "Moves should not repeat");
+        Assertions.assertEquals(hashMove, picked.get(0));
+        Assertions.assertEquals(pack("c3d5"), picked.get(1), "Winning capture");
+        Assertions.assertEquals(pack("a4a7"), picked.get(2), "Killer");
+        Assertions.assertEquals(historyMove, picked.get(3), "Best history score");
+        Assertions.assertEquals(List.of(pack("c3b5"), pack("a4b5")), picked.subList(count - 2, count),
+                "Losing captures, least valuable attacker first");
+    }
+
+    @Test
+    @DisplayName("Quiescence only gets captures that don't lose material")
+    public void captures() {
+        ChessGame game = ChessGame.fromFen("4k3/8/2p5/1p1q4/Q7/2N5/8/4K3 w - - 0 1");
+        int[] list = new int[LegalMoveGenerator.MAX_MOVES];
+        MovePicker picker = new MovePicker(new StaticExchange());
+        picker.startCaptures(list, LegalMoveGenerator.generate(game, list), game.getBoard().getBitboard());
+        Assertions.assertEquals(pack("c3d5"), PackedMove.withoutFlags(picker.next()));
+        Assertions.assertEquals(PackedMove.NONE, picker.next());
+    }
+}
@@ -0,0 +1,156 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.PackedMove;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class OpeningBookTests {
+    private static final String GAMES = """
+            [Result "1-0"]
+            1. e4 e5 2. Nf3 Nc6 1-0
+
+            [Result "0-1"]
+            1. e4 c5 0-1
+
+            [Result "1/2-1/2"]
+            1. d4 d5 2. Zz9 1/2-1/2
+            """;
+
+    @TempDir
+    Path directory;
+
+    private static ChessMove move(String notation) {
+        return ChessMove.fromCoordinateNotation(notation);
+    }
+
+    private OpeningBook build(int maxPly) throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(maxPly);
+        Assertions.assertEquals(3, builder.addPgn(new StringReader(GAMES)));
+        Path path = directory.resolve("book.bin");
+        int entries = builder.write(path);
+        Assertions.assertEquals(OpeningBook.HEADER_BYTES + (long) entries * OpeningBook.ENTRY_BYTES, Files.size(path));
+        return OpeningBook.open(path);
+    }
+
+    @Test
+    @DisplayName("Moves are weighted by results")
+    public void weights() throws IOException {
+        OpeningBook book = build(OpeningBookBuilder.DEFAULT_MAX_PLY);
+        ChessGame game = new ChessGame();
+        // 1. e4 won once and lost once, 1. d4 drew
+        Assertions.assertEquals(List.of(new OpeningBook.Entry(move("e2e4"), 2), new OpeningBook.Entry(move("d2d4"), 1)),
+                book.moves(game));
+
+        // 1... e5 lost, so only 1... c5 is in the book
+        game.makeMoveUnchecked(move("e2e4"));
+        Assertions.assertEquals(List.of(new OpeningBook.Entry(move("c7c5"), 2)), book.moves(game));
+
+        // Moves after an invalid move are left out
+        ChessGame queensPawn = new ChessGame();
+        queensPawn.makeMoveUnchecked(move("d2d4"));
+        queensPawn.makeMoveUnchecked(move("d7d5"));
+        Assertions.assertTrue(book.moves(queensPawn).isEmpty());
+        Assertions.assertNull(book.pick(queensPawn, new SplittableRandom(1)));
+        Assertions.assertEquals(5, book.size());
+    }
+
+    @Test
+    @DisplayName("Only the first plies are added")
+    public void maxPly() throws IOException {
+        OpeningBook book = build(1);
+        Assertions.assertEquals(2, book.size());
+        ChessGame game = new ChessGame();
+        game.makeMoveUnchecked(move("e2e4"));
+        Assertions.assertTrue(book.moves(game).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Moves are picked in proportion to their weights")
+    public void pick() throws IOException {
+        OpeningBook book = build(OpeningBookBuilder.DEFAULT_MAX_PLY);
+        SplittableRandom random = new SplittableRandom(7);
+        int e4 = 0;
+        for (int i = 0; i < 3000; i++) {
+            ChessMove picked = book.pick(new ChessGame(), random);
+            if (picked.equals(move("e2e4"))) {
+                e4++;
+            } else {
+                Assertions.assertEquals(move("d2d4"), picked);
+            }
+        }
+        Assertions.assertTrue(e4 > 1800 && e4 < 2200, "e4 picked " + e4 + " times");
+    }
+
+    @Test
+    @DisplayName("Moves that are illegal in the position are never picked")
+    public void pickSkipsCollisions() throws IOException {
+        // A heavy move of a different position with the same key, next to the one legal move
+        long key = new ChessGame().positionKey();
+        Path path = directory.resolve("collision.bin");
+        int[] moves = {PackedMove.of(move("e7e5")), PackedMove.of(move("e2e4"))};
+        OpeningBook.write(path, new long[]{key, key}, moves, new int[]{OpeningBook.MAX_WEIGHT, 1}, 2);
+        OpeningBook book = OpeningBook.open(path);
+        SplittableRandom random = new SplittableRandom(5);
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertEquals(move("e2e4"), book.pick(new ChessGame(), random));
+        }
+    }
+
+    @Test
+    @DisplayName("Binary search finds every key of a large book")
+    public void search() throws IOException {
+        int count = 100_000;
+        SplittableRandom random = new SplittableRandom(3);
+        long[] keys = random.longs(count).sorted().toArray();
+        int[] moves = new int[count];
+        int[] weights = new int[count];
+        Arrays.fill(moves, PackedMove.of(move("e2e4")));
+        Arrays.fill(weights, 1);
+        // Duplicate keys stand for positions with more than one move
+        for (int i = 1; i < count; i += 10) {
+            keys[i] = keys[i - 1];
+        }
+        Path path = directory.resolve("large.bin");
+        OpeningBook.write(path, keys, moves, weights, count);
+        OpeningBook book = OpeningBook.open(path);
+        Assertions.assertEquals(count, book.size());
+        for (int i = 0; i < count; i++) {
+            int first = book.firstEntry(keys[i]);
+            Assertions.assertEquals(keys[i], keys[first]);
+            Assertions.assertTrue(first == 0 || keys[first - 1] != keys[i]);
+        }
+        Assertions.assertEquals(count, book.firstEntry(Long.MAX_VALUE) + (keys[count - 1] == Long.MAX_VALUE ? 1 : 0));
+    }
+
+    @Test
+    @DisplayName("Invalid books")
+    public void invalid() throws IOException {
+        Path garbage = directory.resolve("garbage.bin");
+        Files.write(garbage, new byte[32]);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OpeningBook.open(garbage));
+
+        Path truncated = directory.resolve("truncated.bin");
+        OpeningBook.write(truncated, new long[]{1, 2}, new int[2], new int[2], 2);
+        Files.write(truncated, Arrays.copyOf(Files.readAllBytes(truncated), 40));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OpeningBook.open(truncated));
+
+        Path path = directory.resolve("book.bin");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> OpeningBook.write(path, new long[]{2, 1}, new int[2], new int[2], 2));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> OpeningBook.write(path, new long[]{1}, new int[1], new int[]{OpeningBook.MAX_WEIGHT + 1}, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new OpeningBookBuilder(0));
+    }
+}
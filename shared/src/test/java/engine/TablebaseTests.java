@@ -0,0 +1,166 @@
+package engine;
+
+import chess.ChessGame;
+import chess.GameStatus;
+import chess.LegalMoveGenerator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class TablebaseTests {
+    // Tables are shared between tests, since each test would otherwise generate them again
+    private static final TablebaseGenerator GENERATOR = new TablebaseGenerator(2);
+
+    @TempDir
+    Path directory;
+
+    @AfterAll
+    public static void close() {
+        GENERATOR.close();
+    }
+
+    private Tablebase open(Endgame... endgames) throws IOException {
+        for (Endgame endgame : endgames) {
+            Tablebase.write(directory, endgame, GENERATOR.generate(endgame));
+        }
+        return Tablebase.open(directory);
+    }
+
+    private static Tablebase.Result probe(Tablebase tablebase, String fen) {
+        return tablebase.probe(ChessGame.fromFen(fen));
+    }
+
+    /**
+     * @return Most plies it takes to mate with the strong side to move
+     */
+    private static int longestMate(Endgame endgame) {
+        byte[] entries = GENERATOR.generate(endgame);
+        int longest = 0;
+        for (int i = 0; i < entries.length / 2; i++) {
+            longest = Math.max(longest, (entries[i] & 0xFF) - 1);
+        }
+        return longest;
+    }
+
+    /**
+     * Play out a won position, the winner always choosing the quickest mate and the loser the slowest, and check
+     * that every move brings mate one ply closer
+     */
+    private static void playOut(Tablebase tablebase, String fen) {
+        ChessGame game = ChessGame.fromFen(fen);
+        Tablebase.Result result = tablebase.probe(game);
+        Assertions.assertNotEquals(0, result.value(), fen);
+        int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+        while (result.pliesToMate() > 0) {
+            int count = LegalMoveGenerator.generate(game, moves);
+            int bestMove = 0;
+            Tablebase.Result best = null;
+            for (int i = 0; i < count; i++) {
+                game.makeMoveUnchecked(moves[i]);
+                Tablebase.Result child = tablebase.probe(game);
+                game.unmakeMove();
+                if (child == null || child.value() == 0) {
+                    // Only the winner can throw the win away, e.g. by promoting to a bishop
+                    Assertions.assertEquals(1, result.value(), game.toFen());
+                    continue;
+                }
+                Assertions.assertEquals(-result.value(), child.value(), game.toFen());
+                if (best == null || (result.value() > 0 ? child.pliesToMate() < best.pliesToMate()
+                        : child.pliesToMate() > best.pliesToMate())) {
+                    best = child;
+                    bestMove = moves[i];
+                }
+            }
+            Assertions.assertNotNull(best, game.toFen());
+            Assertions.assertEquals(result.pliesToMate() - 1, best.pliesToMate(), game.toFen());
+            game.makeMoveUnchecked(bestMove);
+            result = best;
+        }
+        Assertions.assertEquals(GameStatus.CHECKMATE, game.status());
+    }
+
+    @Test
+    @DisplayName("Longest mates match the known results")
+    public void longestMates() {
+        Assertions.assertEquals(19, longestMate(Endgame.KQK));
+        Assertions.assertEquals(31, longestMate(Endgame.KRK));
+        Assertions.assertEquals(55, longestMate(Endgame.KPK));
+    }
+
+    @Test
+    @DisplayName("Known positions")
+    public void knownPositions() throws IOException {
+        Tablebase tablebase = open(Endgame.KQK, Endgame.KRK, Endgame.KPK);
+        Assertions.assertEquals(new Tablebase.Result(-1, 0), probe(tablebase, "7k/6Q1/6K1/8/8/8/8/8 b - - 0 1"));
+        Assertions.assertEquals(new Tablebase.Result(1, 1), probe(tablebase, "7k/8/6K1/8/8/8/8/R7 w - - 0 1"));
+        // Stalemate, and a rook pawn with the defending king in the corner
+        Assertions.assertEquals(Tablebase.Result.DRAW, probe(tablebase, "7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"));
+        Assertions.assertEquals(Tablebase.Result.DRAW, probe(tablebase, "k7/8/8/8/8/8/P7/K7 w - - 0 1"));
+        // The king on the sixth rank in front of its pawn wins whoever is to move, also with colors swapped
+        Assertions.assertEquals(1, probe(tablebase, "4k3/8/4K3/4P3/8/8/8/8 w - - 0 1").value());
+        Assertions.assertEquals(-1, probe(tablebase, "4k3/8/4K3/4P3/8/8/8/8 b - - 0 1").value());
+        Assertions.assertEquals(1, probe(tablebase, "8/8/8/8/4p3/4k3/8/4K3 b - - 0 1").value());
+        Assertions.assertEquals(-1, probe(tablebase, "8/8/8/8/4p3/4k3/8/4K3 w - - 0 1").value());
+    }
+
+    @Test
+    @DisplayName("Positions without a table are not covered")
+    public void notCovered() throws IOException {
+        Tablebase tablebase = open(Endgame.KRK);
+        Assertions.assertFalse(tablebase.contains(Endgame.KQK));
+        Assertions.assertNull(probe(tablebase, "7k/8/6K1/8/8/8/8/Q7 w - - 0 1"));
+        Assertions.assertNull(probe(tablebase, "7k/8/6K1/8/8/8/8/RR6 w - - 0 1"));
+        Assertions.assertNull(probe(tablebase, "4k3/8/8/8/8/8/8/R3K3 w Q - 0 1"));
+        Assertions.assertNull(tablebase.probe(new ChessGame()));
+    }
+
+    @Test
+    @DisplayName("Best play brings mate one ply closer every move")
+    public void bestPlay() throws IOException {
+        Tablebase tablebase = open(Endgame.KQK, Endgame.KRK, Endgame.KPK);
+        playOut(tablebase, "8/8/8/4k3/8/8/8/R3K3 w - - 0 1");
+        playOut(tablebase, "8/8/3k4/8/8/8/8/Q3K3 b - - 0 1");
+        // Promotes and carries on in the queen's table
+        playOut(tablebase, "4k3/8/4K3/4P3/8/8/8/8 w - - 0 1");
+    }
+
+    @Test
+    @DisplayName("Files are bit-packed")
+    public void fileSize() throws IOException {
+        open(Endgame.KQK);
+        // Mates take at most 19 plies, so 5 bits per entry
+        Assertions.assertEquals(Tablebase.HEADER_BYTES + Endgame.KQK.size() * 5 / 8 + 1,
+                Files.size(directory.resolve("KQK" + Tablebase.EXTENSION)));
+        Files.write(directory.resolve("KRK" + Tablebase.EXTENSION), new byte[Tablebase.HEADER_BYTES]);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Tablebase.open(directory));
+    }
+
+    @Test
+    @DisplayName("The engine scores covered positions exactly")
+    public void engine() throws IOException {
+        Tablebase tablebase = open(Endgame.KRK);
+        String fen = "8/8/8/4k3/8/8/8/R3K3 w - - 0 1";
+        ChessGame game = ChessGame.fromFen(fen);
+        int plies = tablebase.probe(game).pliesToMate();
+        Engine engine = new Engine();
+        engine.setTablebase(tablebase);
+        SearchResult result = engine.search(game, SearchLimits.depth(2));
+        Assertions.assertEquals((plies + 1) / 2, result.mateIn());
+        Assertions.assertEquals(new Tablebase.Result(-1, plies - 1), tablebase.probe(game.after(result.bestMove())));
+    }
+
+    @Test
+    @DisplayName("Bishop and knight mate in 33")
+    public void bishopAndKnight() throws IOException {
+        Assumptions.assumeTrue(Boolean.getBoolean("tablebase.deep"), "Bishop and knight tables run with -Ptablebase");
+        Assertions.assertEquals(65, longestMate(Endgame.KBNK));
+        playOut(open(Endgame.KBNK), "8/8/8/4k3/8/8/8/2B1KN2 w - - 0 1");
+    }
+}
@@ -0,0 +1,132 @@
+package engine;
+
+import chess.ChessMove;
+import chess.PackedMove;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TranspositionTableTests {
+    private static final int MOVE = PackedMove.of(ChessMove.fromCoordinateNotation("e2e4"));
+
+    @Test
+    @DisplayName("Stored entries can be probed")
+    public void storeAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        Assertions.assertEquals(1 << 20, table.sizeBytes());
+        long key = 0x123456789ABCDEFL;
+        Assertions.assertEquals(0, table.probe(key));
+
+        table.store(key, MOVE | PackedMove.DOUBLE_PUSH, -250, 7, TranspositionTable.LOWER, 3);
+        long entry = table.probe(key);
+        Assertions.assertEquals(MOVE, TranspositionTable.move(entry));
+        Assertions.assertEquals(-250, TranspositionTable.score(entry, 5));
+        Assertions.assertEquals(7, TranspositionTable.depth(entry));
+        Assertions.assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        Assertions.assertEquals(0, table.probe(key ^ 1));
+
+        // Without a move, the move of the earlier entry is kept
+        table.store(key, PackedMove.NONE, 10, 8, TranspositionTable.UPPER, 0);
+        Assertions.assertEquals(MOVE, TranspositionTable.move(table.probe(key)));
+
+        table.clear();
+        Assertions.assertEquals(0, table.probe(key));
+    }
+
+    @Test
+    @DisplayName("Mate scores are relative to the stored position")
+    public void mateScores() {
+        TranspositionTable table = new TranspositionTable(1);
+        // Mate 5 plies from a node at ply 2 of one search, probed at ply 4 of another
+        table.store(1, MOVE, Engine.MATE - 7, 5, TranspositionTable.EXACT, 2);
+        Assertions.assertEquals(Engine.MATE - 9, TranspositionTable.score(table.probe(1), 4));
+        table.store(2, MOVE, -Engine.MATE + 7, 5, TranspositionTable.EXACT, 2);
+        Assertions.assertEquals(-Engine.MATE + 9, TranspositionTable.score(table.probe(2), 4));
+    }
+
+    @Test
+    @DisplayName("Deep and recent entries are kept")
+    public void replacement() {
+        TranspositionTable table = new TranspositionTable(1);
+        // Keys with the same high half share a bucket of four entries
+        long bucket = 0x42L << 32;
+        table.store(bucket | 1, MOVE, 1, 9, TranspositionTable.EXACT, 0);
+        table.store(bucket | 2, MOVE, 2, 1, TranspositionTable.EXACT, 0);
+        table.store(bucket | 3, MOVE, 3, 8, TranspositionTable.EXACT, 0);
+        table.store(bucket | 4, MOVE, 4, 7, TranspositionTable.EXACT, 0);
+        table.store(bucket | 5, MOVE, 5, 6, TranspositionTable.EXACT, 0);
+        Assertions.assertEquals(0, table.probe(bucket | 2), "Shallowest entry should be replaced");
+        Assertions.assertNotEquals(0, table.probe(bucket | 1));
+        Assertions.assertNotEquals(0, table.probe(bucket | 5));
+        Assertions.assertEquals(1, table.stats().collisions());
+
+        // After a new search, old entries go first even if they are deeper
+        table.newSearch();
+        table.store(bucket | 6, MOVE, 6, 1, TranspositionTable.EXACT, 0);
+        Assertions.assertNotEquals(0, table.probe(bucket | 6));
+        Assertions.assertEquals(1, table.stats().collisions());
+    }
+
+    @Test
+    @DisplayName("Statistics")
+    public void stats() {
+        TranspositionTable table = new TranspositionTable(1);
+        SplittableRandom random = new SplittableRandom(17);
+        for (int i = 0; i < 200_000; i++) {
+            table.store(random.nextLong(), MOVE, 0, 1, TranspositionTable.EXACT, 0);
+        }
+        TranspositionTable.Stats stats = table.stats();
+        Assertions.assertEquals(200_000, stats.stores());
+        Assertions.assertTrue(stats.fillRatio() > 0.9, "Fill ratio " + stats.fillRatio());
+        Assertions.assertTrue(stats.collisionRate() > 0 && stats.collisionRate() < 1);
+
+        table.probe(1);
+        Assertions.assertEquals(0, table.stats().hitRate());
+        table.newSearch();
+        Assertions.assertEquals(0, table.stats().fillRatio());
+    }
+
+    @Test
+    @DisplayName("Concurrent threads never see a torn entry")
+    public void concurrentAccess() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(1);
+        AtomicLong hits = new AtomicLong();
+        AtomicLong corrupt = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 500_000; i++) {
+                    // Few distinct keys, so that threads keep overwriting each other's entries
+                    long key = random.nextLong(1 << 12) * 0x9E3779B97F4A7C15L;
+                    long entry = table.probe(key);
+                    if (entry != 0) {
+                        hits.incrementAndGet();
+                        if (TranspositionTable.score(entry, 0) != (short) key % 1000) {
+                            corrupt.incrementAndGet();
+                        }
+                    }
+                    table.store(key, MOVE, (short) key % 1000, random.nextInt(20), TranspositionTable.EXACT, 0);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertTrue(hits.get() > 0);
+        Assertions.assertEquals(0, corrupt.get());
+    }
+
+    @Test
+    @DisplayName("Size must be positive")
+    public void size() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+        Assertions.assertEquals(8L << 20, new TranspositionTable(8).sizeBytes());
+    }
+}